@@ -79,6 +79,26 @@ public interface StateConductorService {
             }
 
 
+            @Override
+            public Stream<String> getExecutionsAfter(String afterUri, Integer count, String names, Stream<String> status, Stream<String> forestIds, String startDate, String endDate) {
+              return BaseProxy.StringType.toString(
+                baseProxy
+                .request("getExecutionsAfter.sjs", BaseProxy.ParameterValuesKind.MULTIPLE_ATOMICS)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("afterUri", true, BaseProxy.StringType.fromString(afterUri)),
+                    BaseProxy.atomicParam("count", true, BaseProxy.UnsignedIntegerType.fromInteger(count)),
+                    BaseProxy.atomicParam("names", true, BaseProxy.StringType.fromString(names)),
+                    BaseProxy.atomicParam("status", true, BaseProxy.StringType.fromString(status)),
+                    BaseProxy.atomicParam("forestIds", true, BaseProxy.StringType.fromString(forestIds)),
+                    BaseProxy.atomicParam("startDate", true, BaseProxy.DateTimeType.fromString(startDate)),
+                    BaseProxy.atomicParam("endDate", true, BaseProxy.DateTimeType.fromString(endDate)))
+                .withMethod("POST")
+                .responseMultiple(true, null)
+                );
+            }
+
+
             @Override
             public com.fasterxml.jackson.databind.node.ObjectNode getStateMachine(String name) {
               return BaseProxy.ObjectType.toObjectNode(
@@ -138,6 +158,82 @@ public interface StateConductorService {
                 );
             }
 
+
+            @Override
+            public Stream<String> claimPartitions(String driverId, Stream<String> partitions, Integer leaseSeconds) {
+              return BaseProxy.StringType.toString(
+                baseProxy
+                .request("claimPartitions.sjs", BaseProxy.ParameterValuesKind.MULTIPLE_ATOMICS)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("driverId", false, BaseProxy.StringType.fromString(driverId)),
+                    BaseProxy.atomicParam("partitions", true, BaseProxy.StringType.fromString(partitions)),
+                    BaseProxy.atomicParam("leaseSeconds", true, BaseProxy.UnsignedIntegerType.fromInteger(leaseSeconds)))
+                .withMethod("POST")
+                .responseMultiple(true, null)
+                );
+            }
+
+
+            @Override
+            public void releasePartitions(String driverId) {
+              baseProxy
+                .request("releasePartitions.sjs", BaseProxy.ParameterValuesKind.SINGLE_ATOMIC)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("driverId", false, BaseProxy.StringType.fromString(driverId)))
+                .withMethod("POST")
+                .responseNone();
+            }
+
+
+            @Override
+            public java.io.InputStream processExecutionStream(Stream<String> uri, com.fasterxml.jackson.databind.node.ObjectNode options) {
+              return BaseProxy.ArrayType.toInputStream(
+                baseProxy
+                .request("processExecutionStream.sjs", BaseProxy.ParameterValuesKind.MULTIPLE_MIXED)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("uri", false, BaseProxy.StringType.fromString(uri)),
+                    BaseProxy.documentParam("options", true, BaseProxy.ObjectType.fromObjectNode(options)))
+                .withMethod("POST")
+                .responseSingle(false, Format.JSON)
+                );
+            }
+
+
+            @Override
+            public Stream<String> createExecutions(Stream<String> uri, String name) {
+              return BaseProxy.StringType.toString(
+                baseProxy
+                .request("createExecutions.sjs", BaseProxy.ParameterValuesKind.MULTIPLE_ATOMICS)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("uri", false, BaseProxy.StringType.fromString(uri)),
+                    BaseProxy.atomicParam("name", false, BaseProxy.StringType.fromString(name)))
+                .withMethod("POST")
+                .responseMultiple(false, null)
+                );
+            }
+
+
+            @Override
+            public com.fasterxml.jackson.databind.node.ObjectNode getOldestExecutions(String afterCreatedDate, String afterId, Integer count, String names, Stream<String> status, Stream<String> forestIds) {
+              return BaseProxy.ObjectType.toObjectNode(
+                baseProxy
+                .request("getOldestExecutions.sjs", BaseProxy.ParameterValuesKind.MULTIPLE_ATOMICS)
+                .withSession()
+                .withParams(
+                    BaseProxy.atomicParam("afterCreatedDate", true, BaseProxy.DateTimeType.fromString(afterCreatedDate)),
+                    BaseProxy.atomicParam("afterId", true, BaseProxy.StringType.fromString(afterId)),
+                    BaseProxy.atomicParam("count", true, BaseProxy.UnsignedIntegerType.fromInteger(count)),
+                    BaseProxy.atomicParam("names", true, BaseProxy.StringType.fromString(names)),
+                    BaseProxy.atomicParam("status", true, BaseProxy.StringType.fromString(status)),
+                    BaseProxy.atomicParam("forestIds", true, BaseProxy.StringType.fromString(forestIds)))
+                .withMethod("POST")
+                .responseSingle(false, Format.JSON)
+                );
+            }
         }
 
         return new StateConductorServiceImpl(db);
@@ -174,6 +270,20 @@ public interface StateConductorService {
    */
     Stream<String> getExecutions(Integer start, Integer count, String names, Stream<String> status, Stream<String> forestIds, String startDate, String endDate);
 
+  /**
+   * Returns a page of MarkLogic State Conductor Execution document URIs, in uri order, following the given uri
+   *
+   * @param afterUri	Return uris following this uri, typically the last uri of the previous page. Pass null to start from the first uri.
+   * @param count	The number of uris to return
+   * @param names	A list of state machine names to filter the returned execution documents
+   * @param status	A list of state machine status's to filter the returned execution documents.  Defaults to 'new' and 'working'.
+   * @param forestIds	The returned list of execution documents will be limited to executions found in this list of forests.
+   * @param startDate	Filter on executions created after this date and time.
+   * @param endDate	Filter on executions created prior to this date and time.
+   * @return	as output
+   */
+    Stream<String> getExecutionsAfter(String afterUri, Integer count, String names, Stream<String> status, Stream<String> forestIds, String startDate, String endDate);
+
   /**
    * Returns a single stateMachine if name is specified or all stateMachines otherwise.
    *
@@ -210,4 +320,52 @@ public interface StateConductorService {
    */
     String createExecution(String uri, String name);
 
+  /**
+   * Renews and claims a driver's fair share of partition leases, and records the driver's heartbeat
+   *
+   * @param driverId	The id of the calling driver.
+   * @param partitions	All the partitions to be shared between the drivers.
+   * @param leaseSeconds	How long the heartbeat and leases are valid for.  Defaults to 30 seconds.
+   * @return	as output
+   */
+    Stream<String> claimPartitions(String driverId, Stream<String> partitions, Integer leaseSeconds);
+
+  /**
+   * Releases all the partition leases held by a driver.
+   *
+   * @param driverId	The id of the driver.
+   * 
+   */
+    void releasePartitions(String driverId);
+
+  /**
+   * Invokes the processing of a MarkLogic State Conductor Execution, returning the results as a stream for incremental parsing
+   *
+   * @param uri	The uri of a State Conductor Execution document to be processed
+   * @param options	Processing options.  "parallelism" splits the batch into up to that many groups, processed concurrently on the task server.
+   * @return	as output
+   */
+    java.io.InputStream processExecutionStream(Stream<String> uri, com.fasterxml.jackson.databind.node.ObjectNode options);
+
+  /**
+   * Creates MarkLogic State Conductor Execution documents for the given uris and state machine name, in a single transaction.
+   *
+   * @param uri	The uris of the documents to be processed by the state machine
+   * @param name	The name of the State Machine
+   * @return	The Execution IDs of the State Conductor Execution documents, in the same order as the uris
+   */
+    Stream<String> createExecutions(Stream<String> uri, String name);
+
+  /**
+   * Returns a page of MarkLogic State Conductor Execution document URIs, oldest first, following the given createdDate and id
+   *
+   * @param afterCreatedDate	Return the executions created after this date and time, typically the afterCreatedDate of the previous page. Pass null to start from the oldest execution.
+   * @param afterId	Return the executions created at afterCreatedDate with ids following this id, typically the afterId of the previous page.
+   * @param count	The number of uris to return
+   * @param names	A list of state machine names to filter the returned execution documents
+   * @param status	A list of state machine status's to filter the returned execution documents.  Defaults to 'new' and 'working'.
+   * @param forestIds	The returned list of execution documents will be limited to executions found in this list of forests.
+   * @return	as output
+   */
+    com.fasterxml.jackson.databind.node.ObjectNode getOldestExecutions(String afterCreatedDate, String afterId, Integer count, String names, Stream<String> status, Stream<String> forestIds);
 }
@@ -5,6 +5,10 @@ import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.ext.ConfiguredDatabaseClientFactory;
 import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
 import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.resilience.ResilientStateConductorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
@@ -30,13 +34,18 @@ public class Application {
   public StateConductorService stateConductorService() {
     ConfiguredDatabaseClientFactory configuredDatabaseClientFactory = new DefaultConfiguredDatabaseClientFactory();
     DatabaseClient client = configuredDatabaseClientFactory.newDatabaseClient(config.getDatabaseClientConfig());
-    return StateConductorService.on(client);
+    return ResilientStateConductorService.protect(config.getHost(), StateConductorService.on(client), config);
   }
 
   @Bean
-  public ApplicationRunner applicationRunner(ApplicationContext ctx) {
+  public MeterRegistry meterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+
+  @Bean
+  public ApplicationRunner applicationRunner(ApplicationContext ctx, MeterRegistry meterRegistry) {
     return args -> {
-      StateConductorDriver driver = new StateConductorDriver(config);
+      StateConductorDriver driver = new StateConductorDriver(config, new DriverMetrics(meterRegistry));
       Thread driverThread = new Thread(driver);
       driverThread.start();
 
@@ -1,27 +1,40 @@
 package com.marklogic.stateconductor;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.marklogic.StateConductorService;
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.ext.ConfiguredDatabaseClientFactory;
 import com.marklogic.client.ext.DefaultConfiguredDatabaseClientFactory;
+import com.marklogic.stateconductor.batching.AdaptiveBatchSizer;
+import com.marklogic.stateconductor.batching.BatchSizer;
+import com.marklogic.stateconductor.batching.FixedBatchSizer;
+import com.marklogic.stateconductor.cluster.ExecutionForests;
 import com.marklogic.stateconductor.config.StateConductorDriverConfig;
-import com.marklogic.stateconductor.exceptions.ProcessExecutionTaskException;
-import com.marklogic.stateconductor.exceptions.RetryExecutionTaskException;
+import com.marklogic.stateconductor.coordination.LeaseCoordinator;
+import com.marklogic.stateconductor.coordination.PartitionListener;
+import com.marklogic.stateconductor.executors.ExecutionPool;
+import com.marklogic.stateconductor.executors.PlatformThreadExecutionPool;
+import com.marklogic.stateconductor.executors.VirtualThreadExecutionPool;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.queues.ExecutionBatch;
+import com.marklogic.stateconductor.queues.FairExecutionQueue;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import com.marklogic.stateconductor.results.BatchResult;
+import com.marklogic.stateconductor.resilience.ResilientStateConductorService;
 import com.marklogic.stateconductor.tasks.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.security.auth.DestroyFailedException;
 import javax.security.auth.Destroyable;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class StateConductorDriver implements Runnable, Destroyable {
@@ -32,18 +45,59 @@ public class StateConductorDriver implements Runnable, Destroyable {
   private DatabaseClient client;
   private DatabaseClient appServicesClient;
   private StateConductorService service;
+  private String driverId;
+  // the executions database forests and their hosts, with forest affinity or coordination
+  private Map<String, String> forestHosts = new LinkedHashMap<>();
+  // with forest affinity, a client for each host
+  private Map<String, DatabaseClient> hostClients = new HashMap<>();
+  private Map<String, StateConductorService> hostServices = new HashMap<>();
+  private DriverMetrics metrics;
 
   AtomicLong total = new AtomicLong(0);
   AtomicLong totalErrors = new AtomicLong(0);
 
   public StateConductorDriver(StateConductorDriverConfig config) {
+    this(config, new DriverMetrics(new SimpleMeterRegistry()));
+  }
+
+  public StateConductorDriver(StateConductorDriverConfig config, DriverMetrics metrics) {
     this.config = config;
+    this.metrics = metrics;
 
     ConfiguredDatabaseClientFactory configuredDatabaseClientFactory = new DefaultConfiguredDatabaseClientFactory();
     client = configuredDatabaseClientFactory.newDatabaseClient(config.getDatabaseClientConfig());
     appServicesClient = configuredDatabaseClientFactory.newDatabaseClient(config.getAppServicesDatabaseClientConfig());
 
-    service = StateConductorService.on(client);
+    service = ResilientStateConductorService.protect(config.getHost(), StateConductorService.on(client), config);
+
+    driverId = config.getDriverId();
+    if (driverId == null || driverId.trim().isEmpty()) {
+      driverId = UUID.randomUUID().toString();
+    }
+
+    if (config.isForestAffinity() || config.isCoordination()) {
+      ExecutionForests.discover(appServicesClient, config.getExecutionsDatabase())
+        .forEach((host, forestIds) -> forestIds.forEach(forestId -> forestHosts.put(forestId, host)));
+    }
+    if (config.isForestAffinity()) {
+      new LinkedHashSet<>(forestHosts.values()).forEach(host -> {
+        DatabaseClient hostClient = configuredDatabaseClientFactory.newDatabaseClient(config.getDatabaseClientConfig(host));
+        hostClients.put(host, hostClient);
+        hostServices.put(host, ResilientStateConductorService.protect(host, StateConductorService.on(hostClient), config));
+      });
+    }
+  }
+
+  /**
+   * Creates the task fetching executions from the given forest, or from the whole database if the forest is null.
+   */
+  private GetExecutionsTask newGetExecutionsTask(String forestId, FairExecutionQueue queue, InProgressRegistry inProgress) {
+    if (forestId == null) {
+      return new GetExecutionsTask(service, config, queue, inProgress, metrics);
+    }
+    String host = config.isForestAffinity() ? forestHosts.get(forestId) : null;
+    StateConductorService fetchService = host != null ? hostServices.get(host) : service;
+    return new GetExecutionsTask(fetchService, config, queue, inProgress, metrics, host, Collections.singletonList(forestId));
   }
 
   @Override
@@ -53,21 +107,25 @@ public class StateConductorDriver implements Runnable, Destroyable {
     // initializations
     boolean keepRunning = true;
     AtomicLong batchCount = new AtomicLong(1);
-    List<String> urisBuffer = Collections.synchronizedList(new ArrayList<>());
-    Map<String, LocalDateTime> inProgressMap = Collections.synchronizedMap(new HashMap<>(config.getQueueThreshold()));
-    List<Future<JsonNode>> results = new ArrayList<>();
-    List<Future<JsonNode>> completed = new ArrayList<>();
-    List<Future<JsonNode>> errored = new ArrayList<>();
-
-    List<String> batch = new ArrayList<>();
-    List<ProcessExecutionTask> executionBuckets = new ArrayList<>();
-    List<RetryExecutionTask> retryBuckets = new ArrayList<>();
+    InProgressRegistry inProgress = new InProgressRegistry(config.getQueueThreshold());
+    // with forest affinity each host has its own threadsPerHost limit, rather than sharing the pool
+    int hostConcurrency = config.isForestAffinity() ? config.getThreadsPerHost() : Integer.MAX_VALUE;
+    FairExecutionQueue queue = new FairExecutionQueue(config.getBufferSize(), config.getStateMachineWeightMap(),
+      config.getStateMachineConcurrencyMap(), hostConcurrency, name -> newBatchSizer());
 
     // set up the thread pool
     int initialThreads = config.getThreadsPerHost();
     if (config.useFixedThreadCount())
       initialThreads = config.getFixedThreadCount();
-    ThreadPoolExecutor pool = new ThreadPoolExecutor(initialThreads, initialThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue());
+    ExecutionPool pool;
+    if (config.useVirtualThreads()) {
+      logger.info("Using virtual thread execution mode");
+      pool = new VirtualThreadExecutionPool(initialThreads);
+    } else {
+      pool = new PlatformThreadExecutionPool(initialThreads);
+    }
+    CompletionService<BatchResult> completionService = new ExecutorCompletionService<>(pool);
+    ObjectNode processOptions = newProcessOptions();
 
     // start the getConfig thread
     GetConfigTask configTask = new GetConfigTask(appServicesClient, config, pool, initialThreads);
@@ -75,127 +133,86 @@ public class StateConductorDriver implements Runnable, Destroyable {
     configThread.start();
 
     // start the metrics thread
-    MetricsTask metricsTask = new MetricsTask(config, total, totalErrors, pool, inProgressMap);
+    MetricsTask metricsTask = new MetricsTask(config, total, totalErrors, pool, inProgress, queue);
     Thread metricsThread = new Thread(metricsTask);
     metricsThread.start();
 
-    // start the thread for getting executions
-    Thread getExecutionsTask = new Thread(new GetExecutionsTask(service, config, urisBuffer, inProgressMap));
-    getExecutionsTask.start();
+    // start the threads for handling completed batches, and retrying failed executions once they're due
+    RetryScheduler retries = new RetryScheduler(config.getRetryInitialDelayMillis(), config.getRetryMaxDelayMillis(),
+      config.getRetryMultiplier(), config.getRetryJitter());
+    Thread resultsThread = new Thread(new ProcessResultsTask(config, completionService, inProgress, retries, total, totalErrors));
+    resultsThread.start();
+    Thread retriesThread = new Thread(new SubmitRetriesTask(config, retries, completionService, inProgress,
+      host -> host != null ? hostServices.getOrDefault(host, service) : service, metrics, processOptions));
+    retriesThread.start();
+    metrics.bind(queue, inProgress, retries, pool);
 
-    while (keepRunning) {
-      executionBuckets.clear();
-
-      // create batches from any new buffered tasks
-      synchronized (urisBuffer) {
-        Iterator<String> uris = urisBuffer.iterator();
-
-        while(uris.hasNext()) {
-          String uri = uris.next();
-          batch.add(uri);
-          if (batch.size() >= config.getBatchSize()) {
-            executionBuckets.add(new ProcessExecutionTask(batchCount.getAndIncrement(), service, batch));
-            batch = new ArrayList<>();
+    // the threads getting executions, keyed by forest id - one per executions forest with forest affinity or coordination
+    Map<String, Thread> getExecutionsTasks = new ConcurrentHashMap<>();
+    PartitionListener fetchers = new PartitionListener() {
+      @Override
+      public void partitionAcquired(String forestId) {
+        // keep the forest's running fetcher, if it has one
+        getExecutionsTasks.compute(forestId, (key, existing) -> {
+          if (existing != null && existing.isAlive()) {
+            return existing;
           }
-        }
-
-        // cleanup batch
-        if (batch.size() > 0) {
-          executionBuckets.add(new ProcessExecutionTask(batchCount.getAndIncrement(), service, batch));
-          batch = new ArrayList<>();
-        }
-
-        // clear the buffer
-        urisBuffer.clear();
-      }
-
-      // submit any retry tasks to the executor pool
-      for (RetryExecutionTask bucket : retryBuckets) {
-        Future<JsonNode> future = pool.submit(bucket);
-        results.add(future);
-      }
-      if (retryBuckets.size() > 0) {
-        logger.info("Populated thread pool with {} retry tasks", retryBuckets.size());
-      }
-      retryBuckets.clear();
-
-      // submit the batch tasks to the executor pool
-      for (ProcessExecutionTask bucket : executionBuckets) {
-        Future<JsonNode> future = pool.submit(bucket);
-        results.add(future);
-      }
-      if (executionBuckets.size() > 0) {
-        logger.info("Populated thread pool with {} batches", executionBuckets.size());
+          Thread fetcher = new Thread(newGetExecutionsTask(forestId, queue, inProgress));
+          fetcher.start();
+          return fetcher;
+        });
       }
 
-      // process any results that have come in
-      for (Future<JsonNode> jsonNodeFuture : results) {
-        if (jsonNodeFuture.isDone()) {
-          try {
-            AtomicInteger errorCount = new AtomicInteger(0);
-            ArrayNode arr = (ArrayNode) jsonNodeFuture.get();
-            arr.forEach(jsonNode -> {
-              if (logger.isDebugEnabled()) {
-                logger.debug("execution result: {}", jsonNode.toPrettyString());
-              }
-              total.getAndIncrement();
-              String executionUri = jsonNode.get("execution").asText();
-              inProgressMap.remove(executionUri);
-              JsonNode errorNode = jsonNode.get("error");
-              if (errorNode != null) {
-                errorCount.incrementAndGet();
-                logger.warn("error processing execution {}: {}", executionUri, errorNode.toString());
-              }
-            });
-            logger.info("batch result: {} executions complete - with {} errors", arr.size(), errorCount.get());
-            totalErrors.addAndGet(errorCount.get());
-            completed.add(jsonNodeFuture);
-          } catch (Exception e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RetryExecutionTaskException) {
-              RetryExecutionTaskException rex = (RetryExecutionTaskException)cause;
-              logger.error("error processing retry execution: {} attempt {}", rex.getExecutionUri(), rex.getAttempts(), rex);
-              if (rex.getAttempts() < config.getRetryCount()) {
-                // if we have attempts left then retry
-                retryBuckets.add(new RetryExecutionTask(service, rex.getExecutionUri(), rex.getAttempts()));
-              } else {
-                // otherwise remove from the in progress queue
-                logger.info("no more attempts left for execution: {}", rex.getExecutionUri());
-                inProgressMap.remove(rex.getExecutionUri());
-              }
-              totalErrors.incrementAndGet();
-            } else if (cause instanceof ProcessExecutionTaskException) {
-              ProcessExecutionTaskException pex = (ProcessExecutionTaskException)cause;
-              logger.error("error processing batch execution: {} uris: {}", pex.getId(), pex.getExecutionUris(), pex);
-              totalErrors.addAndGet(pex.getExecutionUris().size());
-              // retry these errored executions
-              for (String uri : pex.getExecutionUris()) {
-                retryBuckets.add(new RetryExecutionTask(service, uri));
-              }
-            } else {
-              logger.error("error retrieving batch results", e);
-              totalErrors.incrementAndGet();
-            }
-            errored.add(jsonNodeFuture);
-          }
+      @Override
+      public void partitionReleased(String forestId) {
+        Thread fetcher = getExecutionsTasks.remove(forestId);
+        if (fetcher != null) {
+          fetcher.interrupt();
         }
+        // the forest's new owner fetches its executions, so drop the ones buffered here
+        List<String> dropped = queue.removePartition(forestId);
+        dropped.forEach(inProgress::remove);
+        logger.info("released forest {}, dropping {} buffered executions", forestId, dropped.size());
       }
+    };
 
-      // remove any completed or errored futures
-      completed.forEach(jsonNodeFuture -> results.remove(jsonNodeFuture));
-      completed.clear();
-      errored.forEach(jsonNodeFuture -> results.remove(jsonNodeFuture));
-
-      logger.trace("errored: {}, in-progress: {}, tasks: {}", errored.size(), inProgressMap.size(), pool.getQueue().size());
+    Thread coordinatorThread = null;
+    if (config.isCoordination()) {
+      // only fetch from the forests leased by this driver
+      logger.info("Coordinating executions forests with other drivers as {}", driverId);
+      LeaseCoordinator coordinator = new LeaseCoordinator(service, driverId, new ArrayList<>(forestHosts.keySet()),
+        config.getLeaseSeconds(), fetchers);
+      coordinatorThread = new Thread(coordinator);
+      coordinatorThread.start();
+    } else if (forestHosts.isEmpty()) {
+      Thread fetcher = new Thread(newGetExecutionsTask(null, queue, inProgress));
+      getExecutionsTasks.put("", fetcher);
+      fetcher.start();
+    } else {
+      forestHosts.keySet().forEach(fetchers::partitionAcquired);
+    }
 
+    while (keepRunning) {
       try {
-        Thread.sleep(10L);
+        // wait for the next state machine due a batch, and take whatever of its executions are buffered
+        ExecutionBatch batch = queue.takeBatch();
+
+        // submit the batch task to the executor pool, processing it on the host owning its executions
+        StateConductorService batchService = batch.getHost() != null ? hostServices.getOrDefault(batch.getHost(), service) : service;
+        completionService.submit(new ProcessExecutionTask(batchCount.getAndIncrement(), batchService, batch, metrics, processOptions));
+
+        logger.trace("buffered: {}, in-progress: {}, tasks: {}", queue.size(), inProgress.size(), pool.getQueuedTaskCount());
       } catch (InterruptedException e) {
         // initiate a thread shutdown
         pool.shutdown();
         // stop fetching tasks
         logger.info("Stopping GetExecutionsTask thread...");
-        getExecutionsTask.interrupt();
+        getExecutionsTasks.values().forEach(Thread::interrupt);
+        retriesThread.interrupt();
+        if (coordinatorThread != null) {
+          // hand our forests over to the other drivers
+          coordinatorThread.interrupt();
+        }
         metricsThread.interrupt();
         configThread.interrupt();
         // stop main loop
@@ -208,17 +225,42 @@ public class StateConductorDriver implements Runnable, Destroyable {
       logger.info("Awaiting Batch Completion...");
       if (pool.awaitTermination(Integer.MAX_VALUE, TimeUnit.MINUTES)) {
         logger.info("pool executor terminated.");
-        results.clear();
+      }
+      // handle the remaining results
+      resultsThread.interrupt();
+      resultsThread.join();
+      if (coordinatorThread != null) {
+        coordinatorThread.join();
       }
       // final metrics report
       metricsTask.generateReport();
     } catch (InterruptedException e) {
       logger.info("Stopping StateConductorDriver pool executor...");
       pool.shutdownNow();
+      resultsThread.interrupt();
       Thread.currentThread().interrupt();
     }
   }
 
+  /**
+   * The options sent with each batch, controlling how the batch is processed on the server.
+   */
+  private ObjectNode newProcessOptions() {
+    ObjectNode options = new ObjectMapper().createObjectNode();
+    options.put("parallelism", config.getServerParallelism());
+    options.put("maxSteps", config.getMaxStepsPerCall());
+    options.put("maxTimeMillis", config.getMaxTimeMillisPerCall());
+    return options;
+  }
+
+  private BatchSizer newBatchSizer() {
+    if (config.isAdaptiveBatchSize()) {
+      return new AdaptiveBatchSizer(config.getBatchSize(), config.getMinBatchSize(), config.getMaxBatchSize(),
+        config.getTargetBatchMillis(), config.getMaxBatchErrorRate());
+    }
+    return new FixedBatchSizer(config.getBatchSize());
+  }
+
   @Override
   public void destroy() throws DestroyFailedException {
     if (client != null) {
@@ -227,5 +269,6 @@ public class StateConductorDriver implements Runnable, Destroyable {
     if (appServicesClient != null) {
       appServicesClient.release();
     }
+    hostClients.values().forEach(DatabaseClient::release);
   }
 }
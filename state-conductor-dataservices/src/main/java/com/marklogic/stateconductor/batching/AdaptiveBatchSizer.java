@@ -0,0 +1,61 @@
+package com.marklogic.stateconductor.batching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the batch size using additive-increase/multiplicative-decrease toward a target batch latency.
+ *
+ * A batch which finishes within the target latency, and with an acceptable error rate, grows the batch
+ * size by one.  A slow batch, or one with too many errors, halves it.  Batches which were sent at a larger
+ * size than the current one were dispatched before the last decrease, so they're ignored rather than
+ * shrinking the size a second time for the same overload.
+ */
+public class AdaptiveBatchSizer implements BatchSizer {
+
+  private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetLatencyMillis;
+  private final double maxErrorRate;
+
+  private volatile int batchSize;
+
+  public AdaptiveBatchSizer(int initialBatchSize, int minBatchSize, int maxBatchSize, long targetLatencyMillis, double maxErrorRate) {
+    if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+      throw new IllegalArgumentException("invalid batch size bounds: " + minBatchSize + " - " + maxBatchSize);
+    }
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetLatencyMillis = targetLatencyMillis;
+    this.maxErrorRate = maxErrorRate;
+    this.batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, initialBatchSize));
+  }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public synchronized void record(int size, long elapsedMillis, int errorCount) {
+    if (size <= 0 || size > batchSize) {
+      return;
+    }
+
+    double errorRate = (double) errorCount / size;
+    int previous = batchSize;
+
+    if (elapsedMillis > targetLatencyMillis || errorRate > maxErrorRate) {
+      batchSize = Math.max(minBatchSize, batchSize / 2);
+    } else if (size == batchSize) {
+      // only grow once batches are actually being filled to the current size
+      batchSize = Math.min(maxBatchSize, batchSize + 1);
+    }
+
+    if (previous != batchSize) {
+      logger.debug("batch size {} -> {} (latency: {}ms, error rate: {})", previous, batchSize, elapsedMillis, errorRate);
+    }
+  }
+}
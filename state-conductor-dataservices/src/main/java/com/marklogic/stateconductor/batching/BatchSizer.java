@@ -0,0 +1,18 @@
+package com.marklogic.stateconductor.batching;
+
+/**
+ * Decides how many executions the driver sends in each processExecution batch.
+ */
+public interface BatchSizer {
+
+  int getBatchSize();
+
+  /**
+   * Records the outcome of a processed batch.
+   *
+   * @param batchSize the number of executions in the batch
+   * @param elapsedMillis how long the processExecution call took
+   * @param errorCount the number of executions in the batch which failed, or the batch size if the call itself failed
+   */
+  void record(int batchSize, long elapsedMillis, int errorCount);
+}
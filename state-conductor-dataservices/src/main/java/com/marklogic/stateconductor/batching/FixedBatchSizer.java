@@ -0,0 +1,20 @@
+package com.marklogic.stateconductor.batching;
+
+public class FixedBatchSizer implements BatchSizer {
+
+  private final int batchSize;
+
+  public FixedBatchSizer(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public void record(int batchSize, long elapsedMillis, int errorCount) {
+    // nothing to adapt
+  }
+}
@@ -0,0 +1,57 @@
+package com.marklogic.stateconductor.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.eval.EvalResultIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Discovers the forests of the executions database, and the hosts they're assigned to.
+ */
+public class ExecutionForests {
+
+  private static final Logger logger = LoggerFactory.getLogger(ExecutionForests.class);
+
+  static final String FORESTS_QUERY =
+    "var database;\n" +
+    "const forests = {};\n" +
+    "xdmp.databaseForests(xdmp.database(database), false).toArray().forEach(forestId => {\n" +
+    "  const host = xdmp.hostName(xdmp.forestHost(forestId));\n" +
+    "  (forests[host] = forests[host] || []).push(fn.string(forestId));\n" +
+    "});\n" +
+    "xdmp.toJsonString(forests);";
+
+  private ExecutionForests() {
+  }
+
+  /**
+   * @param client a client for evaluating queries
+   * @param database the name of the executions database
+   * @return the ids of the executions database's forests, keyed by the name of the host they're assigned to
+   */
+  public static Map<String, List<String>> discover(DatabaseClient client, String database) {
+    Map<String, List<String>> forestsByHost = new LinkedHashMap<>();
+    EvalResultIterator result = client.newServerEval().javascript(FORESTS_QUERY).addVariable("database", database).eval();
+    try {
+      if (result.hasNext()) {
+        JsonNode forests = new ObjectMapper().readTree(result.next().getString());
+        forests.fields().forEachRemaining(entry -> {
+          List<String> forestIds = new ArrayList<>();
+          entry.getValue().forEach(forestId -> forestIds.add(forestId.asText()));
+          forestsByHost.put(entry.getKey(), forestIds);
+        });
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to read the forests of database " + database + ": " + e.getMessage(), e);
+    } finally {
+      result.close();
+    }
+    logger.info("Discovered executions database forests: {}", forestsByHost);
+    return forestsByHost;
+  }
+}
@@ -12,6 +12,8 @@ import org.springframework.stereotype.Component;
 
 import javax.net.ssl.SSLContext;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class StateConductorDriverConfig {
@@ -48,12 +50,58 @@ public class StateConductorDriverConfig {
   private Integer threadsPerHost = 16;
   @Value("${maxThreadCount}")
   private Integer maxThreadCount = 128;
+  @Value("${executionMode}")
+  private String executionMode = "platform";
+  @Value("${adaptiveConcurrency}")
+  private boolean adaptiveConcurrency = false;
+  @Value("${minConcurrencyLimit}")
+  private Integer minConcurrencyLimit = 1;
+  @Value("${maxConcurrencyLimit}")
+  private Integer maxConcurrencyLimit = 128;
+  @Value("${circuitBreakerFailures}")
+  private Integer circuitBreakerFailures = 0;
+  @Value("${circuitBreakerOpenMillis}")
+  private Long circuitBreakerOpenMillis = 30000L;
+  @Value("${forestAffinity}")
+  private boolean forestAffinity = false;
+  @Value("${coordination}")
+  private boolean coordination = false;
+  @Value("${leaseSeconds}")
+  private Integer leaseSeconds = 30;
+  @Value("${driverId:#{null}}")
+  private String driverId;
   @Value("${pollSize}")
   private Integer pollSize = 1000;
   @Value("${batchSize}")
   private Integer batchSize = 5;
+  @Value("${adaptiveBatchSize}")
+  private boolean adaptiveBatchSize = false;
+  @Value("${minBatchSize}")
+  private Integer minBatchSize = 1;
+  @Value("${maxBatchSize}")
+  private Integer maxBatchSize = 100;
+  @Value("${targetBatchMillis}")
+  private Long targetBatchMillis = 1000L;
+  @Value("${maxBatchErrorRate}")
+  private Double maxBatchErrorRate = 0.1;
+  @Value("${serverParallelism}")
+  private Integer serverParallelism = 1;
+  @Value("${maxStepsPerCall}")
+  private Integer maxStepsPerCall = 1;
+  @Value("${maxTimeMillisPerCall}")
+  private Long maxTimeMillisPerCall = 1000L;
+  @Value("${bulkLoadEnabled}")
+  private boolean bulkLoadEnabled = false;
+  @Value("${bulkLoadChunkSize}")
+  private Integer bulkLoadChunkSize = 1000;
+  @Value("${bulkLoadThreads}")
+  private Integer bulkLoadThreads = 4;
   @Value("${queueThreshold}")
   private Integer queueThreshold = 20000;
+  @Value("${bufferSize}")
+  private Integer bufferSize = 5000;
+  @Value("${prefetchLowWater}")
+  private Integer prefetchLowWater = 1000;
   @Value("${cooldownMillis}")
   private Long cooldownMillis = 5000L;
   @Value("${pollInterval}")
@@ -64,10 +112,24 @@ public class StateConductorDriverConfig {
   private Long expiredExecutionsSeconds = 3600L;
   @Value("${retryCount}")
   private Integer retryCount = 3;
+  @Value("${retryInitialDelayMillis}")
+  private Long retryInitialDelayMillis = 1000L;
+  @Value("${retryMaxDelayMillis}")
+  private Long retryMaxDelayMillis = 60000L;
+  @Value("${retryMultiplier}")
+  private Double retryMultiplier = 2.0;
+  @Value("${retryJitter}")
+  private Double retryJitter = 0.5;
   @Value("${names:#{null}}")
   private String names;
   @Value("${status:#{null}}")
   private String status;
+  @Value("${pollOrder}")
+  private String pollOrder = "uri";
+  @Value("${stateMachineWeights:#{null}}")
+  private String stateMachineWeights;
+  @Value("${stateMachineConcurrency:#{null}}")
+  private String stateMachineConcurrency;
 
   public DatabaseClientConfig getAppServicesDatabaseClientConfig() {
     DatabaseClientConfig clientConfig = new DatabaseClientConfig();
@@ -94,6 +156,14 @@ public class StateConductorDriverConfig {
   }
 
   public DatabaseClientConfig getDatabaseClientConfig() {
+    return getDatabaseClientConfig(host);
+  }
+
+  /**
+   * @param host the MarkLogic host to connect to
+   * @return the data services client configuration, for connecting to the given host
+   */
+  public DatabaseClientConfig getDatabaseClientConfig(String host) {
     DatabaseClientConfig clientConfig = new DatabaseClientConfig();
     clientConfig.setHost(host);
     clientConfig.setPort(port);
@@ -121,6 +191,44 @@ public class StateConductorDriverConfig {
     return fixedThreadCount > 0;
   }
 
+  /**
+   * Parses a list of state machine settings, eg: "my-state-machine:3,other-state-machine:1"
+   */
+  static Map<String, Integer> parseStateMachineSettings(String property, String value) {
+    Map<String, Integer> settings = new HashMap<>();
+    if (value == null || value.trim().isEmpty()) {
+      return settings;
+    }
+    for (String entry : value.split(",")) {
+      int idx = entry.lastIndexOf(':');
+      if (idx < 1) {
+        throw new IllegalArgumentException(String.format("Invalid %s entry \"%s\", expected \"name:value\"", property, entry));
+      }
+      try {
+        settings.put(entry.substring(0, idx).trim(), Integer.parseInt(entry.substring(idx + 1).trim()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(String.format("Invalid %s entry \"%s\", expected \"name:value\"", property, entry), e);
+      }
+    }
+    return settings;
+  }
+
+  public Map<String, Integer> getStateMachineWeightMap() {
+    return parseStateMachineSettings("stateMachineWeights", stateMachineWeights);
+  }
+
+  public Map<String, Integer> getStateMachineConcurrencyMap() {
+    return parseStateMachineSettings("stateMachineConcurrency", stateMachineConcurrency);
+  }
+
+  public boolean useCircuitBreaker() {
+    return circuitBreakerFailures != null && circuitBreakerFailures > 0;
+  }
+
+  public boolean useVirtualThreads() {
+    return "virtual".equalsIgnoreCase(executionMode);
+  }
+
   public String getHost() {
     return host;
   }
@@ -241,6 +349,86 @@ public class StateConductorDriverConfig {
     this.maxThreadCount = maxThreadCount;
   }
 
+  public String getExecutionMode() {
+    return executionMode;
+  }
+
+  public void setExecutionMode(String executionMode) {
+    this.executionMode = executionMode;
+  }
+
+  public boolean isAdaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+    this.adaptiveConcurrency = adaptiveConcurrency;
+  }
+
+  public Integer getMinConcurrencyLimit() {
+    return minConcurrencyLimit;
+  }
+
+  public void setMinConcurrencyLimit(Integer minConcurrencyLimit) {
+    this.minConcurrencyLimit = minConcurrencyLimit;
+  }
+
+  public Integer getMaxConcurrencyLimit() {
+    return maxConcurrencyLimit;
+  }
+
+  public void setMaxConcurrencyLimit(Integer maxConcurrencyLimit) {
+    this.maxConcurrencyLimit = maxConcurrencyLimit;
+  }
+
+  public Integer getCircuitBreakerFailures() {
+    return circuitBreakerFailures;
+  }
+
+  public void setCircuitBreakerFailures(Integer circuitBreakerFailures) {
+    this.circuitBreakerFailures = circuitBreakerFailures;
+  }
+
+  public Long getCircuitBreakerOpenMillis() {
+    return circuitBreakerOpenMillis;
+  }
+
+  public void setCircuitBreakerOpenMillis(Long circuitBreakerOpenMillis) {
+    this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+  }
+
+  public boolean isForestAffinity() {
+    return forestAffinity;
+  }
+
+  public void setForestAffinity(boolean forestAffinity) {
+    this.forestAffinity = forestAffinity;
+  }
+
+  public boolean isCoordination() {
+    return coordination;
+  }
+
+  public void setCoordination(boolean coordination) {
+    this.coordination = coordination;
+  }
+
+  public Integer getLeaseSeconds() {
+    return leaseSeconds;
+  }
+
+  public void setLeaseSeconds(Integer leaseSeconds) {
+    this.leaseSeconds = leaseSeconds;
+  }
+
+  public String getDriverId() {
+    return driverId;
+  }
+
+  public void setDriverId(String driverId) {
+    this.driverId = driverId;
+  }
+
   public Integer getPollSize() {
     return pollSize;
   }
@@ -257,6 +445,94 @@ public class StateConductorDriverConfig {
     this.batchSize = batchSize;
   }
 
+  public boolean isAdaptiveBatchSize() {
+    return adaptiveBatchSize;
+  }
+
+  public void setAdaptiveBatchSize(boolean adaptiveBatchSize) {
+    this.adaptiveBatchSize = adaptiveBatchSize;
+  }
+
+  public Integer getMinBatchSize() {
+    return minBatchSize;
+  }
+
+  public void setMinBatchSize(Integer minBatchSize) {
+    this.minBatchSize = minBatchSize;
+  }
+
+  public Integer getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public void setMaxBatchSize(Integer maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public Long getTargetBatchMillis() {
+    return targetBatchMillis;
+  }
+
+  public void setTargetBatchMillis(Long targetBatchMillis) {
+    this.targetBatchMillis = targetBatchMillis;
+  }
+
+  public Double getMaxBatchErrorRate() {
+    return maxBatchErrorRate;
+  }
+
+  public void setMaxBatchErrorRate(Double maxBatchErrorRate) {
+    this.maxBatchErrorRate = maxBatchErrorRate;
+  }
+
+  public Integer getServerParallelism() {
+    return serverParallelism;
+  }
+
+  public void setServerParallelism(Integer serverParallelism) {
+    this.serverParallelism = serverParallelism;
+  }
+
+  public Integer getMaxStepsPerCall() {
+    return maxStepsPerCall;
+  }
+
+  public void setMaxStepsPerCall(Integer maxStepsPerCall) {
+    this.maxStepsPerCall = maxStepsPerCall;
+  }
+
+  public Long getMaxTimeMillisPerCall() {
+    return maxTimeMillisPerCall;
+  }
+
+  public void setMaxTimeMillisPerCall(Long maxTimeMillisPerCall) {
+    this.maxTimeMillisPerCall = maxTimeMillisPerCall;
+  }
+
+  public boolean isBulkLoadEnabled() {
+    return bulkLoadEnabled;
+  }
+
+  public void setBulkLoadEnabled(boolean bulkLoadEnabled) {
+    this.bulkLoadEnabled = bulkLoadEnabled;
+  }
+
+  public Integer getBulkLoadChunkSize() {
+    return bulkLoadChunkSize;
+  }
+
+  public void setBulkLoadChunkSize(Integer bulkLoadChunkSize) {
+    this.bulkLoadChunkSize = bulkLoadChunkSize;
+  }
+
+  public Integer getBulkLoadThreads() {
+    return bulkLoadThreads;
+  }
+
+  public void setBulkLoadThreads(Integer bulkLoadThreads) {
+    this.bulkLoadThreads = bulkLoadThreads;
+  }
+
   public Integer getQueueThreshold() {
     return queueThreshold;
   }
@@ -265,6 +541,22 @@ public class StateConductorDriverConfig {
     this.queueThreshold = queueThreshold;
   }
 
+  public Integer getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(Integer bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public Integer getPrefetchLowWater() {
+    return prefetchLowWater;
+  }
+
+  public void setPrefetchLowWater(Integer prefetchLowWater) {
+    this.prefetchLowWater = prefetchLowWater;
+  }
+
   public Long getCooldownMillis() {
     return cooldownMillis;
   }
@@ -305,6 +597,30 @@ public class StateConductorDriverConfig {
     this.status = status;
   }
 
+  public String getPollOrder() {
+    return pollOrder;
+  }
+
+  public void setPollOrder(String pollOrder) {
+    this.pollOrder = pollOrder;
+  }
+
+  public String getStateMachineWeights() {
+    return stateMachineWeights;
+  }
+
+  public void setStateMachineWeights(String stateMachineWeights) {
+    this.stateMachineWeights = stateMachineWeights;
+  }
+
+  public String getStateMachineConcurrency() {
+    return stateMachineConcurrency;
+  }
+
+  public void setStateMachineConcurrency(String stateMachineConcurrency) {
+    this.stateMachineConcurrency = stateMachineConcurrency;
+  }
+
   public Integer getRetryCount() {
     return retryCount;
   }
@@ -313,6 +629,38 @@ public class StateConductorDriverConfig {
     this.retryCount = retryCount;
   }
 
+  public Long getRetryInitialDelayMillis() {
+    return retryInitialDelayMillis;
+  }
+
+  public void setRetryInitialDelayMillis(Long retryInitialDelayMillis) {
+    this.retryInitialDelayMillis = retryInitialDelayMillis;
+  }
+
+  public Long getRetryMaxDelayMillis() {
+    return retryMaxDelayMillis;
+  }
+
+  public void setRetryMaxDelayMillis(Long retryMaxDelayMillis) {
+    this.retryMaxDelayMillis = retryMaxDelayMillis;
+  }
+
+  public Double getRetryMultiplier() {
+    return retryMultiplier;
+  }
+
+  public void setRetryMultiplier(Double retryMultiplier) {
+    this.retryMultiplier = retryMultiplier;
+  }
+
+  public Double getRetryJitter() {
+    return retryJitter;
+  }
+
+  public void setRetryJitter(Double retryJitter) {
+    this.retryJitter = retryJitter;
+  }
+
   public Long getExpiredExecutionsSeconds() {
     return expiredExecutionsSeconds;
   }
@@ -0,0 +1,75 @@
+package com.marklogic.stateconductor.controllers;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSupport;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the driver's metrics, with each meter's measurements and percentiles.
+ * Times are reported in seconds.
+ */
+@RestController
+public class MetricsController {
+
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public MetricsController(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @GetMapping("/metrics")
+  public Map<String, List<Map<String, Object>>> listMetrics(@RequestParam(required = false) String prefix) {
+    Map<String, List<Map<String, Object>>> metrics = new TreeMap<>();
+    for (Meter meter : meterRegistry.getMeters()) {
+      String name = meter.getId().getName();
+      if (prefix == null || name.startsWith(prefix)) {
+        metrics.computeIfAbsent(name, key -> new ArrayList<>()).add(describe(meter));
+      }
+    }
+    return metrics;
+  }
+
+  private Map<String, Object> describe(Meter meter) {
+    Map<String, Object> description = new LinkedHashMap<>();
+
+    Map<String, String> tags = new LinkedHashMap<>();
+    for (Tag tag : meter.getId().getTags()) {
+      tags.put(tag.getKey(), tag.getValue());
+    }
+    description.put("tags", tags);
+    if (meter.getId().getBaseUnit() != null) {
+      description.put("baseUnit", meter.getId().getBaseUnit());
+    }
+
+    Map<String, Double> measurements = new LinkedHashMap<>();
+    for (Measurement measurement : meter.measure()) {
+      measurements.put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+    }
+    description.put("measurements", measurements);
+
+    if (meter instanceof HistogramSupport) {
+      Map<String, Double> percentiles = new LinkedHashMap<>();
+      for (ValueAtPercentile value : ((HistogramSupport) meter).takeSnapshot().percentileValues()) {
+        double percentile = meter instanceof Timer ? value.value(TimeUnit.SECONDS) : value.value();
+        percentiles.put(String.valueOf(value.percentile()), percentile);
+      }
+      if (!percentiles.isEmpty()) {
+        description.put("percentiles", percentiles);
+      }
+    }
+
+    return description;
+  }
+}
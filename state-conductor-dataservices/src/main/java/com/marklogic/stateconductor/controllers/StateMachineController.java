@@ -3,29 +3,55 @@ package com.marklogic.stateconductor.controllers;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Lists;
 import com.marklogic.StateConductorService;
+import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.loaders.BulkExecutionLoader;
+import com.marklogic.stateconductor.loaders.BulkLoadJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RestController
 public class StateMachineController {
 
   private static Logger logger = LoggerFactory.getLogger(StateMachineController.class);
+  private static final int MAX_BULK_LOAD_JOBS = 100;
 
   private final StateConductorService stateConductorService;
+  private final StateConductorDriverConfig config;
+  private final ExecutorService bulkLoadExecutor = Executors.newSingleThreadExecutor();
+  private final Map<String, BulkLoadJob> bulkLoadJobs = Collections.synchronizedMap(new LinkedHashMap<String, BulkLoadJob>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, BulkLoadJob> eldest) {
+      return size() > MAX_BULK_LOAD_JOBS;
+    }
+  });
 
   @Autowired
-  public StateMachineController(StateConductorService stateConductorService) {
+  public StateMachineController(StateConductorService stateConductorService, StateConductorDriverConfig config) {
     this.stateConductorService = stateConductorService;
+    this.config = config;
   }
 
   @GetMapping("/api/state-machine")
@@ -55,4 +81,44 @@ public class StateMachineController {
     ObjectNode result = stateConductorService.getStateMachineStatus(Arrays.stream(new String[]{ name }), start, null, false);
     return result;
   }
+
+  /**
+   * Creates an execution of the named state machine for each uri in the request body, one uri per line.
+   * The uris are buffered to a temporary file and loaded in the background, one load at a time, and the
+   * returned job reports the load's progress.  Disabled unless bulkLoadEnabled is set, as the status server
+   * doesn't authenticate its callers.
+   */
+  @PostMapping(value = "/api/state-machine/{name}/executions", consumes = MediaType.TEXT_PLAIN_VALUE)
+  public ResponseEntity<BulkLoadJob> createExecutions(@PathVariable String name, InputStream body) throws IOException {
+    if (!config.isBulkLoadEnabled()) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    Path uris = Files.createTempFile("state-conductor-bulk-load-", ".txt");
+    try {
+      Files.copy(body, uris, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(uris);
+      throw e;
+    }
+
+    BulkExecutionLoader loader = new BulkExecutionLoader(stateConductorService, config.getBulkLoadChunkSize(), config.getBulkLoadThreads());
+    BulkLoadJob job = new BulkLoadJob(name, uris, loader);
+    bulkLoadJobs.put(job.getId(), job);
+    bulkLoadExecutor.submit(job);
+    logger.info("queued bulk load {} of \"{}\"", job.getId(), name);
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+  }
+
+  /**
+   * Reports the progress of one of the most recent bulk loads.
+   */
+  @GetMapping("/api/state-machine/{name}/executions/{id}")
+  public ResponseEntity<BulkLoadJob> getBulkLoad(@PathVariable String name, @PathVariable String id) {
+    BulkLoadJob job = bulkLoadJobs.get(id);
+    if (job == null || !job.getName().equals(name)) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+    return ResponseEntity.ok(job);
+  }
 }
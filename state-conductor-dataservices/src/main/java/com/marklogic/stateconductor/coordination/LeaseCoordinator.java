@@ -0,0 +1,111 @@
+package com.marklogic.stateconductor.coordination;
+
+import com.marklogic.StateConductorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Shares partitions of the execution documents between drivers, using leases stored in the executions database.
+ *
+ * Each heartbeat renews this driver's leases and claims its fair share of the unowned partitions.  Partitions
+ * held above the fair share, eg: after another driver joins, are released so the other drivers can claim them.
+ * If a driver stops sending heartbeats its leases expire, and the remaining drivers pick up its partitions.
+ * Heartbeats are sent three times per lease period.
+ */
+public class LeaseCoordinator implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(LeaseCoordinator.class);
+
+  private final StateConductorService service;
+  private final String driverId;
+  private final List<String> partitions;
+  private final int leaseSeconds;
+  private final PartitionListener listener;
+
+  private final Set<String> owned = new LinkedHashSet<>();
+  private long lastRenewed = 0L;
+
+  public LeaseCoordinator(StateConductorService service, String driverId, List<String> partitions, int leaseSeconds,
+      PartitionListener listener) {
+    this.service = service;
+    this.driverId = driverId;
+    this.partitions = partitions;
+    this.leaseSeconds = leaseSeconds;
+    this.listener = listener;
+  }
+
+  /**
+   * Renews and claims this driver's leases, notifying the listener of any partitions gained or lost.
+   *
+   * @return the partitions currently owned by this driver
+   */
+  public synchronized Set<String> heartbeat() {
+    long now = System.currentTimeMillis();
+    Set<String> current;
+    try {
+      current = service.claimPartitions(driverId, partitions.stream(), leaseSeconds).collect(Collectors.toCollection(LinkedHashSet::new));
+      lastRenewed = now;
+    } catch (Exception ex) {
+      logger.error("Driver {} failed to renew its partition leases: {}", driverId, ex.getMessage());
+      if (now - lastRenewed < leaseSeconds * 1000L) {
+        // our leases are still valid - try again on the next heartbeat
+        return Collections.unmodifiableSet(new LinkedHashSet<>(owned));
+      }
+      // our leases may have expired and been claimed by another driver
+      current = Collections.emptySet();
+    }
+
+    for (Iterator<String> it = owned.iterator(); it.hasNext(); ) {
+      String partition = it.next();
+      if (!current.contains(partition)) {
+        it.remove();
+        logger.info("Driver {} released partition {}", driverId, partition);
+        listener.partitionReleased(partition);
+      }
+    }
+    for (String partition : current) {
+      if (owned.add(partition)) {
+        logger.info("Driver {} acquired partition {}", driverId, partition);
+        listener.partitionAcquired(partition);
+      }
+    }
+
+    return Collections.unmodifiableSet(new LinkedHashSet<>(owned));
+  }
+
+  /**
+   * Releases all of this driver's leases, so other drivers can claim them straight away.
+   */
+  public synchronized void release() {
+    owned.forEach(listener::partitionReleased);
+    owned.clear();
+    try {
+      service.releasePartitions(driverId);
+      logger.info("Driver {} released all partitions", driverId);
+    } catch (Exception ex) {
+      logger.error("Driver {} failed to release its partition leases: {}", driverId, ex.getMessage());
+    }
+  }
+
+  public String getDriverId() {
+    return driverId;
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      heartbeat();
+      try {
+        Thread.sleep(Math.max(1000L, leaseSeconds * 1000L / 3));
+      } catch (InterruptedException e) {
+        logger.info("Stopping LeaseCoordinator Thread...");
+        release();
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.marklogic.stateconductor.coordination;
+
+/**
+ * Notified as a driver gains and loses ownership of partitions.
+ */
+public interface PartitionListener {
+
+  void partitionAcquired(String partition);
+
+  void partitionReleased(String partition);
+}
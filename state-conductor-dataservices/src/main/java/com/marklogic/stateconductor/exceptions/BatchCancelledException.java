@@ -0,0 +1,22 @@
+package com.marklogic.stateconductor.exceptions;
+
+import java.util.List;
+
+/**
+ * Thrown by a batch or retry task which the pool shut down before it started, so its
+ * executions can be released without having been processed.
+ */
+public class BatchCancelledException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  protected List<String> executionUris;
+
+  public BatchCancelledException(List<String> executionUris) {
+    super("batch cancelled before it started");
+    this.executionUris = executionUris;
+  }
+
+  public List<String> getExecutionUris() {
+    return executionUris;
+  }
+}
@@ -0,0 +1,16 @@
+package com.marklogic.stateconductor.exceptions;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  protected String name;
+
+  public CircuitBreakerOpenException(String name) {
+    super("Circuit breaker for " + name + " is open");
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
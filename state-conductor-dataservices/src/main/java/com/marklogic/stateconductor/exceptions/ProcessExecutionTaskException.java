@@ -4,11 +4,19 @@ import java.util.List;
 
 public class ProcessExecutionTaskException extends Exception {
   protected Long id;
+  protected String name;
+  protected String host;
   protected List<String> executionUris;
 
   public ProcessExecutionTaskException(Long id, List<String> uris, Throwable cause) {
+    this(id, null, null, uris, cause);
+  }
+
+  public ProcessExecutionTaskException(Long id, String name, String host, List<String> uris, Throwable cause) {
     super("ProcessExecutionTask error", cause);
     this.id = id;
+    this.name = name;
+    this.host = host;
     this.executionUris = uris;
   }
 
@@ -16,6 +24,17 @@ public class ProcessExecutionTaskException extends Exception {
     return id;
   }
 
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the host the batch was processed on, or null if it could be any host
+   */
+  public String getHost() {
+    return host;
+  }
+
   public List<String> getExecutionUris() {
     return executionUris;
   }
@@ -1,20 +1,20 @@
 package com.marklogic.stateconductor.exceptions;
 
+import com.marklogic.stateconductor.queues.RetryScheduler;
+
+import java.util.List;
+
 public class RetryExecutionTaskException extends Exception {
-  protected Integer attempts;
-  protected String executionUri;
+  private static final long serialVersionUID = 1L;
 
-  public RetryExecutionTaskException(String uri, Integer attempts, Throwable cause) {
-    super("RetryExecutionTask error", cause);
-    this.attempts = attempts;
-    this.executionUri = uri;
-  }
+  protected List<RetryScheduler.Retry> retries;
 
-  public Integer getAttempts() {
-    return attempts;
+  public RetryExecutionTaskException(List<RetryScheduler.Retry> retries, Throwable cause) {
+    super("RetryExecutionTask error", cause);
+    this.retries = retries;
   }
 
-  public String getExecutionUri() {
-    return executionUri;
+  public List<RetryScheduler.Retry> getRetries() {
+    return retries;
   }
 }
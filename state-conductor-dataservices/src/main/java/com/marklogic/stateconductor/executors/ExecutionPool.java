@@ -0,0 +1,36 @@
+package com.marklogic.stateconductor.executors;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the driver's batch and retry tasks, with a concurrency level that can be
+ * adjusted as MarkLogic hosts join or leave the cluster.
+ */
+public interface ExecutionPool extends Executor {
+
+  /**
+   * Sets the maximum number of tasks that may run at once.
+   *
+   * @param concurrency the new concurrency level
+   */
+  void setConcurrency(int concurrency);
+
+  int getConcurrency();
+
+  /**
+   * @return the number of submitted tasks waiting to run
+   */
+  int getQueuedTaskCount();
+
+  /**
+   * @return the number of tasks running
+   */
+  int getActiveCount();
+
+  void shutdown();
+
+  void shutdownNow();
+
+  boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+}
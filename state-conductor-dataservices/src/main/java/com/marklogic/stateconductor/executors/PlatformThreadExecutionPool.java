@@ -0,0 +1,64 @@
+package com.marklogic.stateconductor.executors;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each task on a fixed size pool of platform threads, the pool size being the concurrency level.
+ */
+public class PlatformThreadExecutionPool implements ExecutionPool {
+
+  private final ThreadPoolExecutor pool;
+
+  public PlatformThreadExecutionPool(int concurrency) {
+    pool = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    pool.execute(command);
+  }
+
+  @Override
+  public synchronized void setConcurrency(int concurrency) {
+    // grow the maximum first when scaling up, so the core size never exceeds it
+    if (concurrency > pool.getMaximumPoolSize()) {
+      pool.setMaximumPoolSize(concurrency);
+      pool.setCorePoolSize(concurrency);
+    } else {
+      pool.setCorePoolSize(concurrency);
+      pool.setMaximumPoolSize(concurrency);
+    }
+  }
+
+  @Override
+  public int getConcurrency() {
+    return pool.getMaximumPoolSize();
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    return pool.getQueue().size();
+  }
+
+  @Override
+  public int getActiveCount() {
+    return pool.getActiveCount();
+  }
+
+  @Override
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Override
+  public void shutdownNow() {
+    pool.shutdownNow();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return pool.awaitTermination(timeout, unit);
+  }
+}
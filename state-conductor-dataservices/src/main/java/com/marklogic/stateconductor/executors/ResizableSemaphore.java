@@ -0,0 +1,33 @@
+package com.marklogic.stateconductor.executors;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fair semaphore whose total number of permits can be changed while permits are held.
+ * Shrinking below the number of held permits takes effect as those permits are released.
+ */
+public class ResizableSemaphore extends Semaphore {
+
+  private static final long serialVersionUID = 1L;
+
+  private int maxPermits;
+
+  public ResizableSemaphore(int permits) {
+    super(permits, true);
+    this.maxPermits = permits;
+  }
+
+  public synchronized void setMaxPermits(int permits) {
+    int delta = permits - maxPermits;
+    if (delta > 0) {
+      release(delta);
+    } else if (delta < 0) {
+      reducePermits(-delta);
+    }
+    maxPermits = permits;
+  }
+
+  public synchronized int getMaxPermits() {
+    return maxPermits;
+  }
+}
@@ -0,0 +1,106 @@
+package com.marklogic.stateconductor.executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each task on its own virtual thread, with the number of tasks running at once
+ * limited by a semaphore rather than the number of platform threads.  Tasks waiting for
+ * a permit park their virtual thread, so a large concurrency level doesn't need an OS
+ * thread per in-flight request.
+ *
+ * Virtual threads require Java 21+.  The driver is built for Java 8, so the executor is
+ * looked up reflectively and construction fails on older JVMs.
+ *
+ * A task interrupted while waiting for a permit is run with its interrupt status set; the
+ * driver's batch tasks then throw a {@link com.marklogic.stateconductor.exceptions.BatchCancelledException}
+ * rather than processing their executions.
+ */
+public class VirtualThreadExecutionPool implements ExecutionPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadExecutionPool.class);
+
+  private final ExecutorService executor;
+  private final ResizableSemaphore permits;
+  private final AtomicInteger active = new AtomicInteger();
+
+  public VirtualThreadExecutionPool(int concurrency) {
+    this.executor = newVirtualThreadPerTaskExecutor();
+    this.permits = new ResizableSemaphore(concurrency);
+  }
+
+  static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("The virtual thread execution mode requires Java 21 or later, running on Java " + System.getProperty("java.version"), e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create a virtual thread executor: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    executor.execute(() -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        // the pool was shut down while this task was waiting to run - run it with its interrupt
+        // status set, so it abandons its batch and reports why through its own result
+        logger.debug("virtual thread task interrupted before it started");
+        Thread.currentThread().interrupt();
+        command.run();
+        return;
+      }
+      active.incrementAndGet();
+      try {
+        command.run();
+      } finally {
+        active.decrementAndGet();
+        permits.release();
+      }
+    });
+  }
+
+  @Override
+  public void setConcurrency(int concurrency) {
+    permits.setMaxPermits(concurrency);
+  }
+
+  @Override
+  public int getConcurrency() {
+    return permits.getMaxPermits();
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    return permits.getQueueLength();
+  }
+
+  @Override
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public void shutdownNow() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return executor.awaitTermination(timeout, unit);
+  }
+}
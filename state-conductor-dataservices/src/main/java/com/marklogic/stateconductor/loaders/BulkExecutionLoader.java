@@ -0,0 +1,131 @@
+package com.marklogic.stateconductor.loaders;
+
+import com.marklogic.StateConductorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Creates executions for a large number of documents by streaming their uris through the createExecutions
+ * service in chunks, each of which is created in a single transaction.
+ *
+ * Up to threads chunks are created at once.  Uris are only read as fast as chunks are created, so the full
+ * set of uris is never held in memory.
+ */
+public class BulkExecutionLoader {
+
+  private static Logger logger = LoggerFactory.getLogger(BulkExecutionLoader.class);
+
+  private final StateConductorService service;
+  private final int chunkSize;
+  private final int threads;
+
+  public BulkExecutionLoader(StateConductorService service, int chunkSize, int threads) {
+    if (chunkSize < 1 || threads < 1) {
+      throw new IllegalArgumentException("invalid chunk size or threads: " + chunkSize + ", " + threads);
+    }
+    this.service = service;
+    this.chunkSize = chunkSize;
+    this.threads = threads;
+  }
+
+  public Summary load(String name, Stream<String> uris) throws InterruptedException {
+    return load(name, uris.iterator());
+  }
+
+  /**
+   * Creates an execution of the named state machine for each of the uris, returning once they've all been attempted.
+   *
+   * @param name the state machine name
+   * @param uris the uris of the documents to be processed
+   * @return the number of executions created, and the uris whose executions couldn't be created
+   * @throws InterruptedException if interrupted while waiting for the chunks to be created
+   */
+  public Summary load(String name, Iterator<String> uris) throws InterruptedException {
+    Summary summary = new Summary();
+    load(name, uris, summary);
+    return summary;
+  }
+
+  /**
+   * Creates an execution of the named state machine for each of the uris, recording progress in the given summary.
+   *
+   * @param name the state machine name
+   * @param uris the uris of the documents to be processed
+   * @param summary the summary updated as each chunk is created
+   * @throws InterruptedException if interrupted while waiting for the chunks to be created
+   */
+  public void load(String name, Iterator<String> uris, Summary summary) throws InterruptedException {
+    Semaphore permits = new Semaphore(threads);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+    try {
+      while (uris.hasNext()) {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while (uris.hasNext() && chunk.size() < chunkSize) {
+          chunk.add(uris.next());
+        }
+        permits.acquire();
+        pool.submit(() -> {
+          try {
+            createChunk(name, chunk, summary);
+          } finally {
+            permits.release();
+          }
+        });
+      }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    logger.info("Created {} executions of \"{}\", {} failed", summary.getCreated(), name, summary.getFailed());
+  }
+
+  private void createChunk(String name, List<String> chunk, Summary summary) {
+    try {
+      List<String> ids = service.createExecutions(chunk.stream(), name).collect(Collectors.toList());
+      summary.created.addAndGet(ids.size());
+    } catch (Exception e) {
+      logger.warn("unable to create executions for {} uris starting with \"{}\": {}", chunk.size(), chunk.get(0), e.getMessage());
+      summary.failedUris.addAll(chunk);
+    }
+  }
+
+  /**
+   * The outcome of a bulk load.
+   */
+  public static class Summary {
+
+    private final AtomicLong created = new AtomicLong();
+    private final List<String> failedUris = Collections.synchronizedList(new ArrayList<>());
+
+    public long getCreated() {
+      return created.get();
+    }
+
+    public long getFailed() {
+      return failedUris.size();
+    }
+
+    /**
+     * @return the uris whose executions couldn't be created, which may be loaded again
+     */
+    public List<String> getFailedUris() {
+      synchronized (failedUris) {
+        return new ArrayList<>(failedUris);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.marklogic.stateconductor.loaders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A bulk load of executions running in the background, reading its uris from a temporary file
+ * which is deleted once the load finishes.  Its summary reports progress while it runs.
+ */
+public class BulkLoadJob implements Runnable {
+
+  private static Logger logger = LoggerFactory.getLogger(BulkLoadJob.class);
+
+  public enum Status { QUEUED, RUNNING, FINISHED, FAILED }
+
+  private final String id = UUID.randomUUID().toString();
+  private final String name;
+  private final Path uris;
+  private final BulkExecutionLoader loader;
+  private final BulkExecutionLoader.Summary summary = new BulkExecutionLoader.Summary();
+  private volatile Status status = Status.QUEUED;
+  private volatile String error;
+
+  public BulkLoadJob(String name, Path uris, BulkExecutionLoader loader) {
+    this.name = name;
+    this.uris = uris;
+    this.loader = loader;
+  }
+
+  @Override
+  public void run() {
+    status = Status.RUNNING;
+    try (BufferedReader reader = Files.newBufferedReader(uris, StandardCharsets.UTF_8);
+         Stream<String> lines = reader.lines()) {
+      loader.load(name, lines.map(String::trim).filter(uri -> !uri.isEmpty()).iterator(), summary);
+      status = Status.FINISHED;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      error = "interrupted";
+      status = Status.FAILED;
+    } catch (Exception e) {
+      logger.error("bulk load {} of \"{}\" failed", id, name, e);
+      error = e.getMessage();
+      status = Status.FAILED;
+    } finally {
+      try {
+        Files.deleteIfExists(uris);
+      } catch (IOException e) {
+        logger.warn("unable to delete {}: {}", uris, e.getMessage());
+      }
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public BulkExecutionLoader.Summary getSummary() {
+    return summary;
+  }
+}
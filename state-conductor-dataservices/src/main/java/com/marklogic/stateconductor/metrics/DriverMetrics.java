@@ -0,0 +1,124 @@
+package com.marklogic.stateconductor.metrics;
+
+import com.marklogic.stateconductor.executors.ExecutionPool;
+import com.marklogic.stateconductor.queues.FairExecutionQueue;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the driver's metrics in a Micrometer registry.
+ *
+ * Call latencies and batch sizes are recorded with percentiles, per state machine.  Executions are counted
+ * per state machine and outcome, and the driver's queues and pool are published as gauges.
+ */
+public class DriverMetrics {
+
+  static final String PREFIX = "stateconductor.driver.";
+  static final double[] PERCENTILES = { 0.5, 0.75, 0.95, 0.99, 0.999 };
+
+  private final MeterRegistry registry;
+  private final Map<String, Timer> fetchTimers = new ConcurrentHashMap<>();
+  private final Map<String, Timer> batchTimers = new ConcurrentHashMap<>();
+  private final Timer retryTimer;
+  private final Map<String, DistributionSummary> batchSizes = new ConcurrentHashMap<>();
+  private final Map<String, Counter> executionCounters = new ConcurrentHashMap<>();
+
+  public DriverMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.retryTimer = Timer.builder(PREFIX + "processExecution.retry")
+      .publishPercentiles(PERCENTILES)
+      .register(registry);
+  }
+
+  public MeterRegistry getRegistry() {
+    return registry;
+  }
+
+  /**
+   * Publishes the sizes of the driver's queues and pool as gauges.
+   */
+  public void bind(FairExecutionQueue queue, InProgressRegistry inProgress, RetryScheduler retries, ExecutionPool pool) {
+    Gauge.builder(PREFIX + "buffered", queue, FairExecutionQueue::size)
+      .description("executions fetched and waiting to be batched").register(registry);
+    Gauge.builder(PREFIX + "inProgress", inProgress, InProgressRegistry::size)
+      .description("executions fetched and not yet processed").register(registry);
+    Gauge.builder(PREFIX + "retries", retries, RetryScheduler::size)
+      .description("executions waiting to be retried").register(registry);
+    Gauge.builder(PREFIX + "pool.active", pool, ExecutionPool::getActiveCount)
+      .description("batch and retry tasks running").register(registry);
+    Gauge.builder(PREFIX + "pool.queued", pool, ExecutionPool::getQueuedTaskCount)
+      .description("batch and retry tasks waiting to run").register(registry);
+    Gauge.builder(PREFIX + "pool.concurrency", pool, ExecutionPool::getConcurrency)
+      .description("the maximum number of tasks which may run at once").register(registry);
+  }
+
+  /**
+   * Records a getExecutions call fetching a state machine's executions.
+   */
+  public void recordFetch(String name, long elapsedNanos) {
+    fetchTimers.computeIfAbsent(name, key -> Timer.builder(PREFIX + "getExecutions")
+      .tag("name", key)
+      .publishPercentiles(PERCENTILES)
+      .register(registry)
+    ).record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a processExecution call for a batch of a state machine's executions.
+   *
+   * @param name the state machine name
+   * @param size the number of executions in the batch
+   * @param elapsedNanos how long the call took
+   * @param errorCount the number of executions which failed, all of them if the call failed
+   */
+  public void recordBatch(String name, int size, long elapsedNanos, int errorCount) {
+    batchTimers.computeIfAbsent(name, key -> Timer.builder(PREFIX + "processExecution")
+      .tag("name", key)
+      .publishPercentiles(PERCENTILES)
+      .register(registry)
+    ).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    batchSizes.computeIfAbsent(name, key -> DistributionSummary.builder(PREFIX + "batchSize")
+      .tag("name", key)
+      .baseUnit("executions")
+      .publishPercentiles(PERCENTILES)
+      .register(registry)
+    ).record(size);
+    recordExecutions(name, size - errorCount, errorCount);
+  }
+
+  /**
+   * Records a processExecution call for a batch of retried executions, which may belong to several state machines.
+   */
+  public void recordRetryBatch(long elapsedNanos) {
+    retryTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts a state machine's processed executions.
+   */
+  public void recordExecutions(String name, int successCount, int errorCount) {
+    if (successCount > 0) {
+      executionCounter(name, "success").increment(successCount);
+    }
+    if (errorCount > 0) {
+      executionCounter(name, "error").increment(errorCount);
+    }
+  }
+
+  private Counter executionCounter(String name, String outcome) {
+    return executionCounters.computeIfAbsent(name + "\n" + outcome, key -> Counter.builder(PREFIX + "executions")
+      .tag("name", name)
+      .tag("outcome", outcome)
+      .baseUnit("executions")
+      .register(registry));
+  }
+}
@@ -0,0 +1,56 @@
+package com.marklogic.stateconductor.queues;
+
+import com.marklogic.stateconductor.batching.BatchSizer;
+
+import java.util.List;
+
+/**
+ * A batch of executions for a single state machine, taken from a {@link FairExecutionQueue}.
+ * The batch holds one of its state machine's concurrency slots until it's released.
+ */
+public class ExecutionBatch {
+
+  private final String name;
+  private final String host;
+  private final List<String> uris;
+  private final BatchSizer batchSizer;
+  private final Runnable onRelease;
+  private boolean released = false;
+
+  ExecutionBatch(String name, String host, List<String> uris, BatchSizer batchSizer, Runnable onRelease) {
+    this.name = name;
+    this.host = host;
+    this.uris = uris;
+    this.batchSizer = batchSizer;
+    this.onRelease = onRelease;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the host which should process this batch, or null if any host may
+   */
+  public String getHost() {
+    return host;
+  }
+
+  public List<String> getUris() {
+    return uris;
+  }
+
+  public BatchSizer getBatchSizer() {
+    return batchSizer;
+  }
+
+  /**
+   * Frees the batch's concurrency slot, once it's finished processing.  Only the first call has any effect.
+   */
+  public synchronized void release() {
+    if (!released) {
+      released = true;
+      onRelease.run();
+    }
+  }
+}
@@ -0,0 +1,430 @@
+package com.marklogic.stateconductor.queues;
+
+import com.marklogic.stateconductor.batching.BatchSizer;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Buffers fetched executions in a separate queue per state machine, and hands out batches across
+ * those queues using weighted fair queuing.
+ *
+ * Each state machine's queue tracks a virtual finish time, which advances by the number of executions
+ * dispatched divided by the state machine's weight.  The next batch always comes from the non-empty queue
+ * with the lowest virtual time, so over time each state machine with work receives a share of the batches
+ * proportional to its weight, however many executions are waiting for the others.  A queue which becomes
+ * non-empty starts at the current virtual time, so idle state machines don't build up credit.
+ *
+ * A state machine may also be given a concurrency cap, limiting how many of its batches can be in-flight
+ * at once.  A capped state machine is skipped until one of its batches is released.
+ *
+ * Executions may be queued for a particular host, eg: the host owning the forest they were fetched from.
+ * Each batch only contains executions for a single host, a state machine's hosts take turns, and a host
+ * with as many in-flight batches as the host concurrency limit is skipped until one is released.
+ *
+ * Executions may also be queued with the partition they were fetched from, so a driver losing a
+ * partition can drop its buffered executions.
+ *
+ * The capacity bounds the total number of buffered executions, and is shared equally between the state
+ * machines with buffered executions, so a backlog for one state machine can't fill the buffer.  Executions
+ * are added a page at a time, so fetching takes the lock once per page rather than once per execution.
+ */
+public class FairExecutionQueue {
+
+  static final String ANY_HOST = "";
+
+  private final int capacity;
+  private final int hostConcurrencyLimit;
+  private final Map<String, Integer> weights;
+  private final Map<String, Integer> concurrencyLimits;
+  private final Function<String, BatchSizer> batchSizerFactory;
+
+  private final Map<String, Lane> lanes = new LinkedHashMap<>();
+  private final Map<String, Integer> hostInFlight = new HashMap<>();
+  // the partition each buffered execution was fetched from, where one was given
+  private final Map<String, String> partitions = new HashMap<>();
+  private int total = 0;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private double virtualTime = 0;
+
+  /**
+   * @param capacity the maximum number of buffered executions, shared between the state machines
+   * @param weights the relative weight of each state machine, state machines without a weight have a weight of 1
+   * @param concurrencyLimits the maximum in-flight batches for each state machine, state machines without a limit are uncapped
+   * @param batchSizerFactory creates the batch sizer for each state machine
+   */
+  public FairExecutionQueue(int capacity, Map<String, Integer> weights, Map<String, Integer> concurrencyLimits,
+      Function<String, BatchSizer> batchSizerFactory) {
+    this(capacity, weights, concurrencyLimits, Integer.MAX_VALUE, batchSizerFactory);
+  }
+
+  /**
+   * @param capacity the maximum number of buffered executions, shared between the state machines
+   * @param weights the relative weight of each state machine, state machines without a weight have a weight of 1
+   * @param concurrencyLimits the maximum in-flight batches for each state machine, state machines without a limit are uncapped
+   * @param hostConcurrencyLimit the maximum in-flight batches for each host
+   * @param batchSizerFactory creates the batch sizer for each state machine
+   */
+  public FairExecutionQueue(int capacity, Map<String, Integer> weights, Map<String, Integer> concurrencyLimits,
+      int hostConcurrencyLimit, Function<String, BatchSizer> batchSizerFactory) {
+    this.capacity = capacity;
+    this.hostConcurrencyLimit = hostConcurrencyLimit;
+    this.weights = weights;
+    this.concurrencyLimits = concurrencyLimits;
+    this.batchSizerFactory = batchSizerFactory;
+  }
+
+  private class Lane {
+    final String name;
+    final Map<String, Deque<String>> hosts = new HashMap<>();
+    // the hosts with buffered executions, in the order they take turns
+    final Deque<String> rotation = new ArrayDeque<>();
+    int size = 0;
+    final int weight;
+    final int concurrencyLimit;
+    final BatchSizer batchSizer;
+    int inFlight = 0;
+    double finishTime = 0;
+
+    Lane(String name) {
+      this.name = name;
+      this.weight = Math.max(1, weights.getOrDefault(name, 1));
+      this.concurrencyLimit = concurrencyLimits.getOrDefault(name, Integer.MAX_VALUE);
+      this.batchSizer = batchSizerFactory.apply(name);
+    }
+
+    boolean isEligible() {
+      return inFlight < concurrencyLimit && nextHost() != null;
+    }
+
+    String nextHost() {
+      for (String host : rotation) {
+        if (hasHostCapacity(host)) {
+          return host;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * @return the number of executions a state machine may buffer - an equal share of the capacity
+   * between the state machines with buffered executions, including this one
+   */
+  private int share(Lane lane) {
+    long active = lanes.values().stream().filter(other -> other.size > 0).count();
+    if (lane == null || lane.size == 0) {
+      active++;
+    }
+    return Math.max(1, (int) (capacity / active));
+  }
+
+  private int bufferedCount(Lane lane) {
+    return lane == null ? 0 : lane.size;
+  }
+
+  private boolean hasRoom(Lane lane) {
+    return total < capacity && lane.size < share(lane);
+  }
+
+  private boolean hasHostCapacity(String host) {
+    return ANY_HOST.equals(host) || hostInFlight.getOrDefault(host, 0) < hostConcurrencyLimit;
+  }
+
+  private Lane lane(String name) {
+    return lanes.computeIfAbsent(name, Lane::new);
+  }
+
+  /**
+   * Adds an execution to its state machine's queue, waiting if that queue is full.
+   *
+   * @param name the state machine name
+   * @param uri the execution document uri
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void put(String name, String uri) throws InterruptedException {
+    put(name, null, uri);
+  }
+
+  /**
+   * Adds an execution to its state machine's queue, to be processed by the given host, waiting if that queue is full.
+   *
+   * @param name the state machine name
+   * @param host the host to process the execution, or null for any host
+   * @param uri the execution document uri
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void put(String name, String host, String uri) throws InterruptedException {
+    put(name, host, null, uri);
+  }
+
+  /**
+   * Adds an execution fetched from a partition to its state machine's queue, to be processed by the given host,
+   * waiting if that queue is full.
+   *
+   * @param name the state machine name
+   * @param host the host to process the execution, or null for any host
+   * @param partition the partition the execution was fetched from, or null
+   * @param uri the execution document uri
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void put(String name, String host, String partition, String uri) throws InterruptedException {
+    putAll(name, host, partition, Collections.singletonList(uri));
+  }
+
+  /**
+   * Adds a page of executions fetched from a partition to their state machine's queue, to be processed by the
+   * given host, waiting until that queue has room.  The page is added whole, so a page larger than the
+   * state machine's {@link #remainingCapacity(String) remaining capacity} overfills it.
+   *
+   * @param name the state machine name
+   * @param host the host to process the executions, or null for any host
+   * @param partition the partition the executions were fetched from, or null
+   * @param uris the execution document uris
+   * @throws InterruptedException if interrupted while waiting, in which case none of the executions were added
+   */
+  public void putAll(String name, String host, String partition, Collection<String> uris) throws InterruptedException {
+    if (uris.isEmpty()) {
+      return;
+    }
+    String hostKey = host == null ? ANY_HOST : host;
+    lock.lockInterruptibly();
+    try {
+      Lane lane = lane(name);
+      while (!hasRoom(lane)) {
+        notFull.await();
+      }
+      if (lane.size == 0) {
+        lane.finishTime = Math.max(lane.finishTime, virtualTime);
+      }
+      Deque<String> hostUris = lane.hosts.computeIfAbsent(hostKey, key -> new ArrayDeque<>());
+      if (hostUris.isEmpty()) {
+        lane.rotation.add(hostKey);
+      }
+      hostUris.addAll(uris);
+      lane.size += uris.size();
+      total += uris.size();
+      if (partition != null) {
+        uris.forEach(uri -> partitions.put(uri, partition));
+      }
+      if (lane.isEligible()) {
+        available.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param name the state machine name
+   * @return how many more executions can be buffered for this state machine without blocking
+   */
+  public int remainingCapacity(String name) {
+    lock.lock();
+    try {
+      Lane lane = lanes.get(name);
+      return Math.max(0, Math.min(share(lane) - bufferedCount(lane), capacity - total));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for a state machine with buffered executions and a free concurrency slot, then removes and
+   * returns a batch of its executions.  The batch must be released once processed.
+   *
+   * @return the next batch
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public ExecutionBatch takeBatch() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      Lane next;
+      while ((next = nextLane()) == null) {
+        available.await();
+      }
+      return dispatch(next);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  ExecutionBatch pollBatch(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      Lane next;
+      while ((next = nextLane()) == null) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = available.awaitNanos(nanos);
+      }
+      return dispatch(next);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Lane nextLane() {
+    Lane next = null;
+    for (Lane lane : lanes.values()) {
+      if (lane.isEligible() && (next == null || lane.finishTime < next.finishTime)) {
+        next = lane;
+      }
+    }
+    return next;
+  }
+
+  private ExecutionBatch dispatch(Lane lane) {
+    String host = lane.nextHost();
+    Deque<String> hostUris = lane.hosts.get(host);
+    int size = Math.min(lane.batchSizer.getBatchSize(), hostUris.size());
+    List<String> uris = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String uri = hostUris.poll();
+      uris.add(uri);
+      partitions.remove(uri);
+    }
+    lane.size -= size;
+    total -= size;
+    // move this host to the back of the state machine's rotation
+    lane.rotation.remove(host);
+    if (!hostUris.isEmpty()) {
+      lane.rotation.add(host);
+    }
+
+    virtualTime = lane.finishTime;
+    lane.finishTime += (double) size / lane.weight;
+    lane.inFlight++;
+    hostInFlight.merge(host, 1, Integer::sum);
+    notFull.signalAll();
+    return new ExecutionBatch(lane.name, ANY_HOST.equals(host) ? null : host, uris, lane.batchSizer, () -> release(lane, host));
+  }
+
+  private void release(Lane lane, String host) {
+    lock.lock();
+    try {
+      lane.inFlight--;
+      hostInFlight.merge(host, -1, Integer::sum);
+      if (nextLane() != null) {
+        available.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the buffered executions fetched from a partition, eg: once another driver owns it.
+   * Executions already taken in a batch are unaffected.
+   *
+   * @param partition the partition
+   * @return the uris of the removed executions
+   */
+  public List<String> removePartition(String partition) {
+    lock.lock();
+    try {
+      List<String> removed = new ArrayList<>();
+      for (Lane lane : lanes.values()) {
+        for (Map.Entry<String, Deque<String>> entry : lane.hosts.entrySet()) {
+          Iterator<String> uris = entry.getValue().iterator();
+          while (uris.hasNext()) {
+            String uri = uris.next();
+            if (partition.equals(partitions.get(uri))) {
+              uris.remove();
+              partitions.remove(uri);
+              removed.add(uri);
+              lane.size--;
+              total--;
+            }
+          }
+          if (entry.getValue().isEmpty()) {
+            lane.rotation.remove(entry.getKey());
+          }
+        }
+      }
+      if (!removed.isEmpty()) {
+        notFull.signalAll();
+      }
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until fewer than the given number of executions are buffered for any of the given state machines.
+   *
+   * @param names the state machine names
+   * @param level the low-water mark
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if a state machine's buffer is below the low-water mark, false if the timeout elapsed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitBelow(Collection<String> names, int level, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (names.stream().noneMatch(name -> bufferedCount(name) < level)) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = notFull.awaitNanos(nanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int bufferedCount(String name) {
+    return bufferedCount(lanes.get(name));
+  }
+
+  /**
+   * @param name the state machine name
+   * @return the number of buffered executions for the state machine
+   */
+  public int size(String name) {
+    lock.lock();
+    try {
+      return bufferedCount(name);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the total number of buffered executions
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return total;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of buffered executions, in-flight batches, and current batch size of each state machine
+   */
+  public Map<String, String> describe() {
+    lock.lock();
+    try {
+      Map<String, String> stats = new LinkedHashMap<>();
+      lanes.values().forEach(lane -> stats.put(lane.name,
+        String.format("buffered: %d, in-flight: %d, batch size: %d", lane.size, lane.inFlight, lane.batchSizer.getBatchSize())));
+      return stats;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.marklogic.stateconductor.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Tracks the executions which have been fetched by the driver but have not finished processing.
+ *
+ * Each execution is also recorded in a one second wide bucket of an expiry index, ordered by the
+ * time it was added.  Purging expired executions only visits the buckets which have aged out,
+ * so its cost is proportional to the number of expired entries rather than the size of the registry.
+ * All operations are safe for concurrent use without external locking.
+ */
+public class InProgressRegistry {
+
+  static final long BUCKET_MILLIS = 1000L;
+
+  private final ConcurrentHashMap<String, Long> entries;
+  private final ConcurrentNavigableMap<Long, Set<String>> expiryIndex = new ConcurrentSkipListMap<>();
+
+  public InProgressRegistry() {
+    this(16);
+  }
+
+  public InProgressRegistry(int initialCapacity) {
+    entries = new ConcurrentHashMap<>(initialCapacity);
+  }
+
+  /**
+   * Registers an execution as in-progress.
+   *
+   * @param uri the execution document uri
+   * @return true if the execution was not already in-progress
+   */
+  public boolean add(String uri) {
+    return add(uri, System.currentTimeMillis());
+  }
+
+  boolean add(String uri, long timestamp) {
+    Long bucket = timestamp / BUCKET_MILLIS;
+    if (entries.putIfAbsent(uri, bucket) != null) {
+      return false;
+    }
+    expiryIndex.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(uri);
+    return true;
+  }
+
+  /**
+   * Removes an execution from the registry, eg: once it's been processed.
+   *
+   * @param uri the execution document uri
+   */
+  public void remove(String uri) {
+    Long bucket = entries.remove(uri);
+    if (bucket != null) {
+      Set<String> uris = expiryIndex.get(bucket);
+      if (uris != null) {
+        uris.remove(uri);
+      }
+    }
+  }
+
+  public boolean contains(String uri) {
+    return entries.containsKey(uri);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes and returns the executions that were added more than maxAgeMillis ago.
+   *
+   * @param maxAgeMillis the maximum age of an in-progress execution
+   * @return the uris of the purged executions
+   */
+  public List<String> purgeExpired(long maxAgeMillis) {
+    return purgeExpired(maxAgeMillis, System.currentTimeMillis());
+  }
+
+  List<String> purgeExpired(long maxAgeMillis, long now) {
+    List<String> expired = new ArrayList<>();
+    long cutoff = (now - maxAgeMillis) / BUCKET_MILLIS;
+
+    Map.Entry<Long, Set<String>> oldest;
+    while ((oldest = expiryIndex.firstEntry()) != null && oldest.getKey() < cutoff) {
+      Long bucket = oldest.getKey();
+      Set<String> uris = expiryIndex.remove(bucket);
+      if (uris == null) {
+        continue;
+      }
+      for (String uri : uris) {
+        // only remove the entry if it hasn't since been re-added to a newer bucket
+        if (entries.remove(uri, bucket)) {
+          expired.add(uri);
+        }
+      }
+    }
+
+    return expired;
+  }
+}
@@ -0,0 +1,142 @@
+package com.marklogic.stateconductor.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds failed executions until their next attempt is due.
+ *
+ * Each attempt waits exponentially longer than the last, from initialDelayMillis up to maxDelayMillis.
+ * The delay is then reduced by a random fraction of up to jitter, so executions which failed together
+ * don't all come back at once.  Executions which are due at the same time are taken together as a batch.
+ */
+public class RetryScheduler {
+
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final double multiplier;
+  private final double jitter;
+  private final Random random;
+  private final DelayQueue<Retry> retries = new DelayQueue<>();
+
+  public RetryScheduler(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitter) {
+    this(initialDelayMillis, maxDelayMillis, multiplier, jitter, new Random());
+  }
+
+  RetryScheduler(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitter, Random random) {
+    if (initialDelayMillis < 0 || maxDelayMillis < initialDelayMillis) {
+      throw new IllegalArgumentException("invalid retry delays: " + initialDelayMillis + " - " + maxDelayMillis);
+    }
+    if (multiplier < 1 || jitter < 0 || jitter > 1) {
+      throw new IllegalArgumentException("invalid retry multiplier or jitter: " + multiplier + ", " + jitter);
+    }
+    this.initialDelayMillis = initialDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.multiplier = multiplier;
+    this.jitter = jitter;
+    this.random = random;
+  }
+
+  /**
+   * Schedules an execution's next attempt.
+   *
+   * @param uri the execution document uri
+   * @param name the execution's state machine name
+   * @param host the host which should process the execution, or null if any host may
+   * @param attempt the attempt being scheduled, starting at 1
+   */
+  public void schedule(String uri, String name, String host, int attempt) {
+    long dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayFor(attempt));
+    retries.put(new Retry(uri, name, host, attempt, dueAt));
+  }
+
+  /**
+   * @param attempt the attempt being scheduled, starting at 1
+   * @return the number of milliseconds to wait before the attempt
+   */
+  long delayFor(int attempt) {
+    double delay = initialDelayMillis * Math.pow(multiplier, Math.max(0, attempt - 1));
+    delay = Math.min(delay, maxDelayMillis);
+    return (long) (delay * (1 - jitter * random.nextDouble()));
+  }
+
+  /**
+   * Waits for the next retry to come due, and takes it along with any others that are also due.
+   *
+   * @param maxSize the maximum number of retries to take
+   * @return the due retries
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public List<Retry> takeBatch(int maxSize) throws InterruptedException {
+    List<Retry> batch = new ArrayList<>();
+    batch.add(retries.take());
+    retries.drainTo(batch, maxSize - 1);
+    return batch;
+  }
+
+  /**
+   * @return the number of executions waiting to be retried
+   */
+  public int size() {
+    return retries.size();
+  }
+
+  /**
+   * An execution waiting for its next attempt.
+   */
+  public static class Retry implements Delayed {
+
+    private final String uri;
+    private final String name;
+    private final String host;
+    private final int attempt;
+    private final long dueAt;
+
+    Retry(String uri, String name, String host, int attempt, long dueAt) {
+      this.uri = uri;
+      this.name = name;
+      this.host = host;
+      this.attempt = attempt;
+      this.dueAt = dueAt;
+    }
+
+    public String getUri() {
+      return uri;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the host which should process the execution, or null if any host may
+     */
+    public String getHost() {
+      return host;
+    }
+
+    /**
+     * @return the attempt this retry will make, starting at 1
+     */
+    public int getAttempt() {
+      return attempt;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      if (other instanceof Retry) {
+        return Long.compare(dueAt, ((Retry) other).dueAt);
+      }
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.marklogic.stateconductor.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to an overloaded server for a while, rather than adding to its load.
+ *
+ * The breaker opens after a number of consecutive failures, and rejects calls until openMillis has passed.
+ * It then lets a single trial call through: if that succeeds the breaker closes again, otherwise it
+ * stays open for another openMillis.
+ */
+public class CircuitBreaker {
+
+  private static Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openMillis;
+  private final LongSupplier clock;
+  private State state = State.CLOSED;
+  private int failures = 0;
+  private long openedAt = 0;
+  private boolean trialInFlight = false;
+
+  public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+    this(name, failureThreshold, openMillis, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier clock) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("invalid circuit breaker failure threshold: " + failureThreshold);
+    }
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * @return true if a call may be made, in which case its outcome must be recorded
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.getAsLong() - openedAt < openMillis) {
+          return false;
+        }
+        logger.info("circuit breaker for {} is half-open - trying a call", name);
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      default:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+  }
+
+  /**
+   * Records a call which got a response from the server.
+   */
+  public synchronized void onSuccess() {
+    if (state != State.CLOSED) {
+      logger.info("circuit breaker for {} closed", name);
+    }
+    state = State.CLOSED;
+    failures = 0;
+    trialInFlight = false;
+  }
+
+  /**
+   * Records a call which failed because the server is unavailable or overloaded.
+   */
+  public synchronized void onFailure() {
+    failures++;
+    trialInFlight = false;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+      logger.warn("circuit breaker for {} opened after {} failures", name, failures);
+      state = State.OPEN;
+      openedAt = clock.getAsLong();
+    }
+  }
+
+  /**
+   * Records a call which was allowed but never made.
+   */
+  public synchronized void onCancelled() {
+    trialInFlight = false;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
@@ -0,0 +1,103 @@
+package com.marklogic.stateconductor.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent calls to MarkLogic, adapting the limit to the observed latency.
+ *
+ * Each successful call compares a slowly moving average of the call latency (the baseline) with the
+ * call's own latency.  While calls take about as long as the baseline the limit grows by roughly its
+ * square root; as calls slow down the limit shrinks in proportion, down to half of its value per sample.
+ * Calls which fail because the server is overloaded halve the limit straight away.
+ */
+public class GradientConcurrencyLimiter {
+
+  static final double BASELINE_SMOOTHING = 0.01;
+  static final double LIMIT_SMOOTHING = 0.2;
+  static final double MIN_GRADIENT = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private double limit;
+  private double baselineNanos = 0;
+  private int inFlight = 0;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitAvailable = lock.newCondition();
+
+  public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException("invalid concurrency limits: " + minLimit + " - " + maxLimit);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  /**
+   * Waits until a call may be made within the current limit.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (inFlight >= (int) limit) {
+        permitAvailable.await();
+      }
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records the outcome of a call made after {@link #acquire()}, and frees its permit.
+   *
+   * @param elapsed the time the call took
+   * @param unit the unit of the elapsed time
+   * @param overloaded true if the call failed because the server is overloaded
+   */
+  public void release(long elapsed, TimeUnit unit, boolean overloaded) {
+    lock.lock();
+    try {
+      boolean saturated = inFlight >= limit / 2;
+      inFlight--;
+      if (overloaded) {
+        limit = Math.max(minLimit, limit / 2);
+      } else {
+        double rtt = Math.max(1, unit.toNanos(elapsed));
+        baselineNanos = baselineNanos == 0 ? rtt : baselineNanos + (rtt - baselineNanos) * BASELINE_SMOOTHING;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, baselineNanos / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        // don't grow the limit while it isn't being used
+        if (newLimit < limit || saturated) {
+          newLimit = limit + (newLimit - limit) * LIMIT_SMOOTHING;
+          limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        }
+      }
+      permitAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,258 @@
+package com.marklogic.stateconductor.resilience;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marklogic.StateConductorService;
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.MarkLogicIOException;
+import com.marklogic.client.impl.FailedRequest;
+import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.exceptions.CircuitBreakerOpenException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Wraps a {@link StateConductorService}, limiting the number of concurrent calls with a
+ * {@link GradientConcurrencyLimiter} and failing fast with a {@link CircuitBreaker} while the server is overloaded.
+ *
+ * Only timeouts, connection failures and 502, 503 or 504 responses count as the server being overloaded -
+ * other errors are the server responding normally.  Either the limiter or the breaker may be null to disable it.
+ * The partition lease calls are passed straight through, so a driver keeps its leases while shedding load.
+ * A processExecutionStream call holds its permit until the response stream is closed, as reading the
+ * response is most of the call.
+ */
+public class ResilientStateConductorService implements StateConductorService {
+
+  private final StateConductorService service;
+  private final GradientConcurrencyLimiter limiter;
+  private final CircuitBreaker breaker;
+  private final String name;
+
+  public ResilientStateConductorService(String name, StateConductorService service, GradientConcurrencyLimiter limiter,
+      CircuitBreaker breaker) {
+    this.name = name;
+    this.service = service;
+    this.limiter = limiter;
+    this.breaker = breaker;
+  }
+
+  /**
+   * Wraps a host's service with an adaptive concurrency limit and a circuit breaker, if they're enabled.
+   */
+  public static StateConductorService protect(String host, StateConductorService service, StateConductorDriverConfig config) {
+    if (!config.isAdaptiveConcurrency() && !config.useCircuitBreaker()) {
+      return service;
+    }
+    GradientConcurrencyLimiter limiter = config.isAdaptiveConcurrency() ?
+      new GradientConcurrencyLimiter(config.getThreadsPerHost(), config.getMinConcurrencyLimit(), config.getMaxConcurrencyLimit()) : null;
+    CircuitBreaker breaker = config.useCircuitBreaker() ?
+      new CircuitBreaker(host, config.getCircuitBreakerFailures(), config.getCircuitBreakerOpenMillis()) : null;
+    return new ResilientStateConductorService(host, service, limiter, breaker);
+  }
+
+  static boolean isOverloaded(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MarkLogicIOException || cause instanceof java.net.SocketTimeoutException) {
+        return true;
+      }
+      if (cause instanceof FailedRequestException) {
+        FailedRequest failure = ((FailedRequestException) cause).getFailedRequest();
+        int status = failure != null ? failure.getStatusCode() : 0;
+        return status == 502 || status == 503 || status == 504;
+      }
+    }
+    return false;
+  }
+
+  private void acquire() {
+    if (breaker != null && !breaker.tryAcquire()) {
+      throw new CircuitBreakerOpenException(name);
+    }
+    if (limiter != null) {
+      try {
+        limiter.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (breaker != null) {
+          breaker.onCancelled();
+        }
+        throw new CancellationException("interrupted waiting to call " + name);
+      }
+    }
+  }
+
+  private void release(long start, boolean overloaded) {
+    if (limiter != null) {
+      limiter.release(System.nanoTime() - start, TimeUnit.NANOSECONDS, overloaded);
+    }
+    if (breaker != null) {
+      if (overloaded) {
+        breaker.onFailure();
+      } else {
+        breaker.onSuccess();
+      }
+    }
+  }
+
+  private <T> T call(Supplier<T> request) {
+    acquire();
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    try {
+      return request.get();
+    } catch (RuntimeException ex) {
+      overloaded = isOverloaded(ex);
+      throw ex;
+    } finally {
+      release(start, overloaded);
+    }
+  }
+
+  /**
+   * Releases the permit for a call once its response stream has been read and closed.
+   */
+  private class ReleasingInputStream extends FilterInputStream {
+    private final long start;
+    private boolean overloaded = false;
+    private boolean released = false;
+
+    ReleasingInputStream(InputStream in, long start) {
+      super(in);
+      this.start = start;
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        return super.read();
+      } catch (IOException ex) {
+        overloaded = overloaded || isOverloaded(ex);
+        throw ex;
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      try {
+        return super.read(b, off, len);
+      } catch (IOException ex) {
+        overloaded = overloaded || isOverloaded(ex);
+        throw ex;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        if (!released) {
+          released = true;
+          release(start, overloaded);
+        }
+      }
+    }
+  }
+
+  private void run(Runnable request) {
+    call(() -> {
+      request.run();
+      return null;
+    });
+  }
+
+  @Override
+  public String createStateMachine(String name, ObjectNode stateMachine) {
+    return call(() -> service.createStateMachine(name, stateMachine));
+  }
+
+  @Override
+  public void deleteStateMachine(String name) {
+    run(() -> service.deleteStateMachine(name));
+  }
+
+  @Override
+  public Stream<String> getExecutions(Integer start, Integer count, String names, Stream<String> status,
+      Stream<String> forestIds, String startDate, String endDate) {
+    return call(() -> service.getExecutions(start, count, names, status, forestIds, startDate, endDate));
+  }
+
+  @Override
+  public Stream<String> getExecutionsAfter(String afterUri, Integer count, String names, Stream<String> status,
+      Stream<String> forestIds, String startDate, String endDate) {
+    return call(() -> service.getExecutionsAfter(afterUri, count, names, status, forestIds, startDate, endDate));
+  }
+
+  @Override
+  public ObjectNode getStateMachine(String name) {
+    return call(() -> service.getStateMachine(name));
+  }
+
+  @Override
+  public ArrayNode processExecution(Stream<String> uri) {
+    return call(() -> service.processExecution(uri));
+  }
+
+  @Override
+  public InputStream processExecutionStream(Stream<String> uri, ObjectNode options) {
+    acquire();
+    long start = System.nanoTime();
+    InputStream response;
+    try {
+      response = service.processExecutionStream(uri, options);
+    } catch (RuntimeException ex) {
+      release(start, isOverloaded(ex));
+      throw ex;
+    }
+    if (response == null) {
+      release(start, false);
+      return null;
+    }
+    return new ReleasingInputStream(response, start);
+  }
+
+  @Override
+  public ObjectNode getStateMachineStatus(Stream<String> names, String startDate, String endDate, Boolean detailed) {
+    return call(() -> service.getStateMachineStatus(names, startDate, endDate, detailed));
+  }
+
+  @Override
+  public String createExecution(String uri, String name) {
+    return call(() -> service.createExecution(uri, name));
+  }
+
+  @Override
+  public Stream<String> createExecutions(Stream<String> uri, String name) {
+    return call(() -> service.createExecutions(uri, name));
+  }
+
+  @Override
+  public ObjectNode getOldestExecutions(String afterCreatedDate, String afterId, Integer count, String names,
+      Stream<String> status, Stream<String> forestIds) {
+    return call(() -> service.getOldestExecutions(afterCreatedDate, afterId, count, names, status, forestIds));
+  }
+
+  @Override
+  public Stream<String> claimPartitions(String driverId, Stream<String> partitions, Integer leaseSeconds) {
+    return service.claimPartitions(driverId, partitions, leaseSeconds);
+  }
+
+  @Override
+  public void releasePartitions(String driverId) {
+    service.releasePartitions(driverId);
+  }
+
+  public GradientConcurrencyLimiter getLimiter() {
+    return limiter;
+  }
+
+  public CircuitBreaker getBreaker() {
+    return breaker;
+  }
+}
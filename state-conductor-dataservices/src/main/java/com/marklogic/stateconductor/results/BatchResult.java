@@ -0,0 +1,42 @@
+package com.marklogic.stateconductor.results;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of processing a batch of executions - the uris processed, and the errors of any which failed.
+ */
+public class BatchResult implements ExecutionResultHandler {
+
+  private final List<String> executionUris = new ArrayList<>();
+  private final Map<String, String> errors = new LinkedHashMap<>();
+
+  @Override
+  public void handle(String executionUri, String error) {
+    executionUris.add(executionUri);
+    if (error != null) {
+      errors.put(executionUri, error);
+    }
+  }
+
+  public List<String> getExecutionUris() {
+    return executionUris;
+  }
+
+  /**
+   * @return the JSON serialized errors, keyed by execution uri
+   */
+  public Map<String, String> getErrors() {
+    return errors;
+  }
+
+  public int size() {
+    return executionUris.size();
+  }
+
+  public int getErrorCount() {
+    return errors.size();
+  }
+}
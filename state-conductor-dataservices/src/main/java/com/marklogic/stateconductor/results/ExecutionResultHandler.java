@@ -0,0 +1,14 @@
+package com.marklogic.stateconductor.results;
+
+/**
+ * Receives each execution's result as a processExecution response is parsed.
+ */
+@FunctionalInterface
+public interface ExecutionResultHandler {
+
+  /**
+   * @param executionUri the execution document uri
+   * @param error the JSON serialized error processing the execution, or null if it succeeded
+   */
+  void handle(String executionUri, String error);
+}
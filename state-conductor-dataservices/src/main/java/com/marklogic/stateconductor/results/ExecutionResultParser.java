@@ -0,0 +1,64 @@
+package com.marklogic.stateconductor.results;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+
+/**
+ * Parses a processExecution response incrementally, handing each execution's uri and error to a handler
+ * without building the response as a tree.  Any other fields of the results, such as "result", are skipped.
+ */
+public class ExecutionResultParser {
+
+  private static final JsonFactory factory = new JsonFactory();
+
+  private ExecutionResultParser() {}
+
+  /**
+   * Parses the results, closing the stream once they've been read.
+   *
+   * @param in the processExecution response
+   * @param handler receives each execution's result
+   * @return the number of results
+   * @throws IOException if the response can't be read or isn't an array of results
+   */
+  public static int parse(InputStream in, ExecutionResultHandler handler) throws IOException {
+    int count = 0;
+    try (JsonParser parser = factory.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("expected an array of execution results");
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        String executionUri = null;
+        String error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          JsonToken value = parser.nextToken();
+          if ("execution".equals(field)) {
+            executionUri = parser.getValueAsString();
+          } else if ("error".equals(field) && value != JsonToken.VALUE_NULL) {
+            error = serialize(parser);
+          } else {
+            parser.skipChildren();
+          }
+        }
+        handler.handle(executionUri, error);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static String serialize(JsonParser parser) throws IOException {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = factory.createGenerator(writer)) {
+      generator.copyCurrentStructure(parser);
+    }
+    return writer.toString();
+  }
+}
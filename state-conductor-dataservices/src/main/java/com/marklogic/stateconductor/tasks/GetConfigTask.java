@@ -4,10 +4,10 @@ import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.eval.EvalResultIterator;
 import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.executors.ExecutionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class GetConfigTask implements Runnable {
@@ -19,13 +19,13 @@ public class GetConfigTask implements Runnable {
 
   DatabaseClient client;
   StateConductorDriverConfig config;
-  ThreadPoolExecutor pool;
+  ExecutionPool pool;
 
   Integer currHosts;
   Integer maxPoolSize;
 
 
-  public GetConfigTask(DatabaseClient client, StateConductorDriverConfig config, ThreadPoolExecutor pool, int initialThreads) {
+  public GetConfigTask(DatabaseClient client, StateConductorDriverConfig config, ExecutionPool pool, int initialThreads) {
     this.client = client;
     this.config = config;
     this.pool = pool;
@@ -34,10 +34,7 @@ public class GetConfigTask implements Runnable {
   }
 
   protected void setPoolSize(int size) {
-    synchronized (pool) {
-      pool.setMaximumPoolSize(size);
-      pool.setCorePoolSize(size);
-    }
+    pool.setConcurrency(size);
   }
 
   @Override
@@ -60,8 +57,12 @@ public class GetConfigTask implements Runnable {
           currHosts = hostCount.get();
 
           if (!config.useFixedThreadCount()) {
-            maxPoolSize = Math.min(config.getMaxThreadCount(), currHosts * config.getThreadsPerHost());
-            logger.info("Scaling to {} threads!", maxPoolSize);
+            maxPoolSize = currHosts * config.getThreadsPerHost();
+            if (!config.useVirtualThreads()) {
+              // virtual threads aren't backed by an OS thread each, so only cap platform threads
+              maxPoolSize = Math.min(config.getMaxThreadCount(), maxPoolSize);
+            }
+            logger.info("Scaling to {} {} threads!", maxPoolSize, config.getExecutionMode());
             setPoolSize(maxPoolSize);
           }
         }
@@ -72,7 +73,7 @@ public class GetConfigTask implements Runnable {
       if (config.useFixedThreadCount()) {
         logger.info("FIXED THREAD POOL SIZE: {}", config.getFixedThreadCount());
       } else {
-        logger.info("THREAD POOL SIZE: {}", maxPoolSize);
+        logger.info("THREAD POOL SIZE: {} ({} threads)", maxPoolSize, config.getExecutionMode());
       }
 
       try {
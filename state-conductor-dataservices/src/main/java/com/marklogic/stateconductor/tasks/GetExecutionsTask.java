@@ -1,34 +1,81 @@
 package com.marklogic.stateconductor.tasks;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Lists;
 import com.marklogic.StateConductorService;
 import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.queues.FairExecutionQueue;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class GetExecutionsTask implements Runnable {
 
   private static Logger logger = LoggerFactory.getLogger(GetExecutionsTask.class);
 
+  static final long NAMES_REFRESH_MILLIS = 60000L;
+
   private StateConductorDriverConfig config;
   private StateConductorService service;
-  private List<String> urisBuffer;
-  private Map<String, LocalDateTime> inProgressMap;
+  private FairExecutionQueue queue;
+  private InProgressRegistry inProgress;
+  private DriverMetrics metrics;
+  private String host;
+  private List<String> forestIds;
+  // the forest this task fetches from, which its buffered executions are dropped for if it's released
+  private String partition;
+
+  private List<String> names = Collections.emptyList();
+  private long namesRefreshed = 0L;
+  // where the next page of each state machine's executions starts
+  private Map<String, Cursor> cursors = new HashMap<>();
+  // the state machines whose last fetch found more work in the database
+  private Set<String> pending = new HashSet<>();
+
+  public GetExecutionsTask(StateConductorService service, StateConductorDriverConfig config, FairExecutionQueue queue,
+      InProgressRegistry inProgress, DriverMetrics metrics) {
+    this(service, config, queue, inProgress, metrics, null, null);
+  }
 
-  public GetExecutionsTask(StateConductorService service, StateConductorDriverConfig config, List<String> urisBuffer,
-      Map<String, LocalDateTime> inProgressMap) {
+  /**
+   * Creates a task fetching the executions in the given forests, to be processed on the host owning them.
+   */
+  public GetExecutionsTask(StateConductorService service, StateConductorDriverConfig config, FairExecutionQueue queue,
+      InProgressRegistry inProgress, DriverMetrics metrics, String host, List<String> forestIds) {
     this.service = service;
     this.config = config;
-    this.urisBuffer = urisBuffer;
-    this.inProgressMap = inProgressMap;
+    this.queue = queue;
+    this.inProgress = inProgress;
+    this.metrics = metrics;
+    this.host = host;
+    this.forestIds = forestIds;
+    this.partition = forestIds != null && forestIds.size() == 1 ? forestIds.get(0) : null;
+  }
+
+  /**
+   * The position a page of executions follows - the last uri fetched, or with the createdDate poll order the
+   * createdDate and id of the last execution fetched.
+   */
+  private static class Cursor {
+    private String afterUri;
+    private String afterCreatedDate;
+    private String afterId;
   }
 
-  private Stream<String> FetchExecutionDocuments(int start) {
+  /**
+   * Fetches the page of a state machine's executions following the cursor.  With the createdDate poll order the
+   * cursor is moved to the page's last execution, as the page's uris don't say where it ends.
+   */
+  private Stream<String> FetchExecutionDocuments(String name, Cursor cursor, int count) {
     Stream<String> executionUris = null;
     Stream<String> status = null;
 
@@ -38,8 +85,24 @@ public class GetExecutionsTask implements Runnable {
     }
 
     try {
-      logger.info("Fetching Executions Batch...");
-      executionUris = service.getExecutions(start, config.getPollSize(), config.getNames(), status, null, null, null);
+      if (forestIds != null) {
+        logger.info("Fetching Executions Batch for {} from forests {}...", name, forestIds);
+      } else {
+        logger.info("Fetching Executions Batch for {}...", name);
+      }
+      Stream<String> forests = forestIds != null ? forestIds.stream() : null;
+      long start = System.nanoTime();
+      if ("createdDate".equals(config.getPollOrder())) {
+        ObjectNode page = service.getOldestExecutions(cursor.afterCreatedDate, cursor.afterId, count, name, status, forests);
+        if (page.hasNonNull("afterId")) {
+          cursor.afterCreatedDate = page.get("afterCreatedDate").asText();
+          cursor.afterId = page.get("afterId").asText();
+        }
+        executionUris = StreamSupport.stream(page.path("executions").spliterator(), false).map(JsonNode::asText);
+      } else {
+        executionUris = service.getExecutionsAfter(cursor.afterUri, count, name, status, forests, null, null);
+      }
+      metrics.recordFetch(name, System.nanoTime() - start);
     } catch (Exception ex) {
       logger.error("An error occurred fetching execution documents: {}", ex.getMessage());
       ex.printStackTrace();
@@ -49,57 +112,105 @@ public class GetExecutionsTask implements Runnable {
     return executionUris;
   }
 
-  private void purgeExpiredExecutions() {
-    List<String> oldExecutions = new ArrayList<>();
-    synchronized (inProgressMap) {
-      LocalDateTime oldDate = LocalDateTime.now().minusSeconds(config.getExpiredExecutionsSeconds());
-      Iterator<String> keys = inProgressMap.keySet().iterator();
-      while (keys.hasNext()) {
-        String key = keys.next();
-        LocalDateTime fetchedTime = inProgressMap.get(key);
-        if (fetchedTime.isBefore(oldDate)) {
-          oldExecutions.add(key);
-          logger.info("GetExecutionsTask aged out old execution: {}", key);
-        }
+  /**
+   * Returns the state machines to fetch executions for - either the configured names, or all installed state machines.
+   */
+  private List<String> getStateMachineNames() {
+    if (config.getNames() != null && config.getNames().trim().length() > 0) {
+      return Arrays.stream(config.getNames().split(",")).map(String::trim).collect(Collectors.toList());
+    }
+
+    long now = System.currentTimeMillis();
+    if (now - namesRefreshed > NAMES_REFRESH_MILLIS) {
+      try {
+        names = Lists.newArrayList(service.getStateMachine(null).fieldNames());
+        namesRefreshed = now;
+        logger.debug("GetExecutionsTask found state machines: {}", names);
+      } catch (Exception ex) {
+        logger.error("An error occurred fetching the installed state machines: {}", ex.getMessage());
       }
-      oldExecutions.forEach(uri -> inProgressMap.remove(uri));
-      oldExecutions.clear();
     }
+    return names;
+  }
+
+  private void purgeExpiredExecutions() {
+    List<String> oldExecutions = inProgress.purgeExpired(config.getExpiredExecutionsSeconds() * 1000L);
+    oldExecutions.forEach(uri -> logger.info("GetExecutionsTask aged out old execution: {}", uri));
   }
 
   @Override
   public void run() {
-    int start = 1;
     long emptyCount = 0;
-    LocalDateTime now;
     AtomicLong totalNew = new AtomicLong();
     AtomicLong totalFetched = new AtomicLong();
 
     while(true) {
       totalNew.set(0);
       totalFetched.set(0);
-      now = LocalDateTime.now();
 
       // age out any "old" in-progress executions - allows them to be retried
       purgeExpiredExecutions();
 
-      if (inProgressMap.size() < config.getQueueThreshold()) {
-        // grab execution documents if we're below the queue threshold
-        Stream<String> executionUris = FetchExecutionDocuments(start);
-        Iterator<String> executions = executionUris.iterator();
-
-        synchronized (urisBuffer) {
-          while(executions.hasNext()) {
-            String executionUri = executions.next();
-            totalFetched.getAndIncrement();
-            if (!inProgressMap.containsKey(executionUri)) {
-              totalNew.getAndIncrement();
-              urisBuffer.add(executionUri);
-              inProgressMap.put(executionUri, now);
+      if (inProgress.size() < config.getQueueThreshold()) {
+        // grab execution documents for each state machine if we're below the queue threshold
+        try {
+          for (String name : getStateMachineNames()) {
+            if (pending.contains(name) && queue.size(name) >= config.getPrefetchLowWater()) {
+              // still has enough buffered executions - wait for it to drain before fetching more
+              continue;
+            }
+
+            // only request as many executions as this state machine's queue has room for
+            int count = Math.min(config.getPollSize(), queue.remainingCapacity(name));
+            if (count <= 0) {
+              logger.debug("GetExecutionsTask queue for {} is full", name);
+              continue;
+            }
+
+            Cursor cursor = cursors.computeIfAbsent(name, key -> new Cursor());
+            String lastUri = null;
+            long fetched = 0;
+            List<String> newUris = new ArrayList<>();
+            Iterator<String> executions = FetchExecutionDocuments(name, cursor, count).iterator();
+            while(executions.hasNext()) {
+              String executionUri = executions.next();
+              lastUri = executionUri;
+              fetched++;
+              if (inProgress.add(executionUri)) {
+                newUris.add(executionUri);
+              } else {
+                logger.trace("got already in-progress execution {}", executionUri);
+              }
+            }
+            // buffer the page in one go, rather than taking the queue's lock per execution
+            try {
+              queue.putAll(name, host, partition, newUris);
+            } catch (InterruptedException e) {
+              newUris.forEach(inProgress::remove);
+              throw e;
+            }
+            long fetchedNew = newUris.size();
+            totalFetched.addAndGet(fetched);
+            totalNew.addAndGet(fetchedNew);
+
+            if (fetched == count) {
+              // request the page following this one on the next pass
+              cursor.afterUri = lastUri;
             } else {
-              logger.trace("got already in-progress execution {}", executionUri);
+              // reached the end - start again from the first execution
+              cursors.remove(name);
+            }
+
+            if (fetched == count || fetchedNew > 0) {
+              pending.add(name);
+            } else {
+              pending.remove(name);
             }
           }
+        } catch (InterruptedException e) {
+          logger.info("Stopping GetExecutionsTask Thread...");
+          Thread.currentThread().interrupt();
+          break;
         }
 
         if (totalFetched.get() != totalNew.get()) {
@@ -109,21 +220,21 @@ public class GetExecutionsTask implements Runnable {
         }
 
         if (logger.isDebugEnabled())
-          logger.debug("in progress queue size: {}", inProgressMap.size());
+          logger.debug("in progress queue size: {}", inProgress.size());
 
       } else {
         logger.info("Queued executions limit ({}) reached!", config.getQueueThreshold());
       }
 
       try {
-        if (totalFetched.get() == config.getPollSize()) {
-          // request next page
-          start += config.getPollSize();
+        if (!pending.isEmpty() && inProgress.size() < config.getQueueThreshold()) {
+          // there's more work in the database - fetch again as soon as a buffer drains below the low-water mark,
+          // re-checking the other state machines at least once per poll interval
           emptyCount = 0;
-          logger.debug("GetExecutionsTask requesting next page...");
-          Thread.sleep(10L);
+          if (queue.awaitBelow(pending, config.getPrefetchLowWater(), config.getPollInterval(), TimeUnit.MILLISECONDS)) {
+            logger.debug("GetExecutionsTask prefetching for {}...", pending);
+          }
         } else {
-          start = 1;
           emptyCount = (totalNew.get() == 0) ? emptyCount + 1 : 0;
 
           if (emptyCount > 3) {
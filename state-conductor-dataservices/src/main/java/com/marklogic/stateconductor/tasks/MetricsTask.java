@@ -1,12 +1,12 @@
 package com.marklogic.stateconductor.tasks;
 
 import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.executors.ExecutionPool;
+import com.marklogic.stateconductor.queues.FairExecutionQueue;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class MetricsTask implements Runnable {
@@ -17,15 +17,17 @@ public class MetricsTask implements Runnable {
   private AtomicLong total;
   private AtomicLong errorCount;
   private long previous = 0L;
-  private ThreadPoolExecutor pool;
-  private Map<String, LocalDateTime> inProgressMap;
+  private ExecutionPool pool;
+  private InProgressRegistry inProgress;
+  private FairExecutionQueue queue;
 
-  public MetricsTask(StateConductorDriverConfig config, AtomicLong total, AtomicLong errorCount, ThreadPoolExecutor pool, Map<String, LocalDateTime> inProgressMap) {
+  public MetricsTask(StateConductorDriverConfig config, AtomicLong total, AtomicLong errorCount, ExecutionPool pool, InProgressRegistry inProgress, FairExecutionQueue queue) {
     this.config = config;
     this.total = total;
     this.errorCount = errorCount;
     this.pool = pool;
-    this.inProgressMap = inProgressMap;
+    this.inProgress = inProgress;
+    this.queue = queue;
   }
 
   public void generateReport() {
@@ -36,7 +38,8 @@ public class MetricsTask implements Runnable {
 
     logger.info("Processed {} transitions, with {} errors.  Current rate {} transitions/second", total.get(), errorCount.get(), rate);
     if (logger.isDebugEnabled()) {
-      logger.debug("Queued Tasks Count: {}, In-Progress uris: {}", pool.getQueue().size(), inProgressMap.size());
+      logger.debug("Queued Tasks Count: {}, In-Progress uris: {}, Buffered uris: {}", pool.getQueuedTaskCount(), inProgress.size(), queue.size());
+      queue.describe().forEach((name, stats) -> logger.debug("State Machine {} - {}", name, stats));
     }
 
     previous = current;
@@ -1,45 +1,80 @@
 package com.marklogic.stateconductor.tasks;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.marklogic.StateConductorService;
+import com.marklogic.stateconductor.exceptions.BatchCancelledException;
 import com.marklogic.stateconductor.exceptions.ProcessExecutionTaskException;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.queues.ExecutionBatch;
+import com.marklogic.stateconductor.results.BatchResult;
+import com.marklogic.stateconductor.results.ExecutionResultParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
-public class ProcessExecutionTask implements Callable<JsonNode> {
+public class ProcessExecutionTask implements Callable<BatchResult> {
 
   Logger logger = LoggerFactory.getLogger(ProcessExecutionTask.class);
 
   private Long id;
   private StateConductorService service;
+  private ExecutionBatch batch;
+  private DriverMetrics metrics;
+  private ObjectNode options;
   private List<String> executionUris;
 
-  public ProcessExecutionTask(Long id, StateConductorService service, List<String> executionUris) {
+  public ProcessExecutionTask(Long id, StateConductorService service, ExecutionBatch batch, DriverMetrics metrics,
+      ObjectNode options) {
     this.id = id;
     this.service = service;
-    this.executionUris = executionUris;
+    this.batch = batch;
+    this.metrics = metrics;
+    this.options = options;
+    this.executionUris = batch.getUris();
   }
 
   @Override
-  public JsonNode call() throws ProcessExecutionTaskException {
-    logger.info("processing batch execution: {} [size: {}]", id, executionUris.size());
+  public BatchResult call() throws ProcessExecutionTaskException, BatchCancelledException {
+    if (Thread.interrupted()) {
+      // the pool shut down before this batch started
+      batch.release();
+      throw new BatchCancelledException(executionUris);
+    }
+    logger.info("processing batch execution: {} [name: {}, size: {}]", id, batch.getName(), executionUris.size());
     if (logger.isDebugEnabled()) {
       logger.debug("uris: {}", executionUris.toString());
     }
+    long start = System.nanoTime();
     try {
-      return service.processExecution(executionUris.stream());
+      BatchResult results = new BatchResult();
+      ExecutionResultParser.parse(service.processExecutionStream(executionUris.stream(), options), results);
+      record(System.nanoTime() - start, results.getErrorCount());
+      return results;
     } catch (Exception ex) {
-      throw new ProcessExecutionTaskException(id, executionUris, ex);
+      record(System.nanoTime() - start, executionUris.size());
+      throw new ProcessExecutionTaskException(id, batch.getName(), batch.getHost(), executionUris, ex);
+    } finally {
+      // free this state machine's concurrency slot
+      batch.release();
     }
   }
 
+  private void record(long elapsedNanos, int errorCount) {
+    batch.getBatchSizer().record(executionUris.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), errorCount);
+    metrics.recordBatch(batch.getName(), executionUris.size(), elapsedNanos, errorCount);
+  }
+
   public Long getId() {
     return id;
   }
 
+  public String getName() {
+    return batch.getName();
+  }
+
   public List<String> getExecutionUris() {
     return executionUris;
   }
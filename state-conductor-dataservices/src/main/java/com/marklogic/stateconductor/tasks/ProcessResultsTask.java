@@ -0,0 +1,114 @@
+package com.marklogic.stateconductor.tasks;
+
+import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.exceptions.BatchCancelledException;
+import com.marklogic.stateconductor.exceptions.ProcessExecutionTaskException;
+import com.marklogic.stateconductor.exceptions.RetryExecutionTaskException;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import com.marklogic.stateconductor.results.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handles the results of batch and retry tasks as they complete.  Blocks on the
+ * completion service, so no work is done while there are no finished tasks.
+ * Executions from failed tasks are handed to the {@link RetryScheduler} to be retried later.
+ */
+public class ProcessResultsTask implements Runnable {
+
+  private static Logger logger = LoggerFactory.getLogger(ProcessResultsTask.class);
+
+  private StateConductorDriverConfig config;
+  private CompletionService<BatchResult> completionService;
+  private InProgressRegistry inProgress;
+  private RetryScheduler retries;
+  private AtomicLong total;
+  private AtomicLong totalErrors;
+
+  public ProcessResultsTask(StateConductorDriverConfig config, CompletionService<BatchResult> completionService,
+      InProgressRegistry inProgress, RetryScheduler retries, AtomicLong total, AtomicLong totalErrors) {
+    this.config = config;
+    this.completionService = completionService;
+    this.inProgress = inProgress;
+    this.retries = retries;
+    this.total = total;
+    this.totalErrors = totalErrors;
+  }
+
+  private void handleResult(Future<BatchResult> resultFuture) {
+    try {
+      BatchResult result = resultFuture.get();
+      for (String executionUri : result.getExecutionUris()) {
+        logger.debug("execution complete: {}", executionUri);
+        inProgress.remove(executionUri);
+      }
+      result.getErrors().forEach((executionUri, error) -> logger.warn("error processing execution {}: {}", executionUri, error));
+      logger.info("batch result: {} executions complete - with {} errors", result.size(), result.getErrorCount());
+      total.addAndGet(result.size());
+      totalErrors.addAndGet(result.getErrorCount());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RetryExecutionTaskException) {
+        RetryExecutionTaskException rex = (RetryExecutionTaskException)cause;
+        logger.error("error processing {} retry executions", rex.getRetries().size(), rex);
+        for (RetryScheduler.Retry retry : rex.getRetries()) {
+          if (retry.getAttempt() < config.getRetryCount()) {
+            // if we have attempts left then retry
+            scheduleRetry(retry.getUri(), retry.getName(), retry.getHost(), retry.getAttempt() + 1);
+          } else {
+            // otherwise remove from the in progress queue
+            logger.info("no more attempts left for execution: {}", retry.getUri());
+            inProgress.remove(retry.getUri());
+          }
+        }
+        totalErrors.addAndGet(rex.getRetries().size());
+      } else if (cause instanceof ProcessExecutionTaskException) {
+        ProcessExecutionTaskException pex = (ProcessExecutionTaskException)cause;
+        logger.error("error processing batch execution: {} uris: {}", pex.getId(), pex.getExecutionUris(), pex);
+        totalErrors.addAndGet(pex.getExecutionUris().size());
+        // retry these errored executions
+        for (String uri : pex.getExecutionUris()) {
+          scheduleRetry(uri, pex.getName(), pex.getHost(), 1);
+        }
+      } else if (cause instanceof BatchCancelledException) {
+        BatchCancelledException bex = (BatchCancelledException)cause;
+        logger.info("batch of {} executions cancelled before it started", bex.getExecutionUris().size());
+        // release the executions so they can be picked up again later
+        bex.getExecutionUris().forEach(inProgress::remove);
+      } else {
+        logger.error("error retrieving batch results", e);
+        totalErrors.incrementAndGet();
+      }
+    }
+  }
+
+  private void scheduleRetry(String uri, String name, String host, int attempt) {
+    retries.schedule(uri, name, host, attempt);
+    logger.info("Scheduled retry for execution: {} [attempt: {}]", uri, attempt);
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      try {
+        handleResult(completionService.take());
+      } catch (InterruptedException e) {
+        // handle anything that completed before we were asked to stop
+        Future<BatchResult> future;
+        while ((future = completionService.poll()) != null) {
+          handleResult(future);
+        }
+        logger.info("Stopping ProcessResultsTask Thread...");
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
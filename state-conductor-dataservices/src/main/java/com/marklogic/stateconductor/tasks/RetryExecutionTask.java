@@ -1,48 +1,68 @@
 package com.marklogic.stateconductor.tasks;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.marklogic.StateConductorService;
+import com.marklogic.stateconductor.exceptions.BatchCancelledException;
 import com.marklogic.stateconductor.exceptions.RetryExecutionTaskException;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import com.marklogic.stateconductor.results.BatchResult;
+import com.marklogic.stateconductor.results.ExecutionResultParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
-public class RetryExecutionTask implements Callable<JsonNode> {
+/**
+ * Retries a batch of executions which came due together in the {@link RetryScheduler}.
+ */
+public class RetryExecutionTask implements Callable<BatchResult> {
 
   Logger logger = LoggerFactory.getLogger(RetryExecutionTask.class);
 
-  private Integer attempts;
   private StateConductorService service;
-  private String executionUri;
+  private List<RetryScheduler.Retry> retries;
+  private DriverMetrics metrics;
+  private ObjectNode options;
 
-  public RetryExecutionTask(StateConductorService service, String executionUri) {
-    this(service, executionUri, 0);
-  }
-
-  public RetryExecutionTask(StateConductorService service, String executionUri, Integer attempts) {
-    this.attempts = attempts;
+  public RetryExecutionTask(StateConductorService service, List<RetryScheduler.Retry> retries, DriverMetrics metrics,
+      ObjectNode options) {
     this.service = service;
-    this.executionUri = executionUri;
+    this.retries = retries;
+    this.metrics = metrics;
+    this.options = options;
   }
 
   @Override
-  public JsonNode call() throws RetryExecutionTaskException {
-    attempts = attempts + 1;
-    logger.info("retrying execution: {} [attempt: {}]", executionUri, attempts);
+  public BatchResult call() throws RetryExecutionTaskException, BatchCancelledException {
+    if (Thread.interrupted()) {
+      // the pool shut down before these retries started
+      throw new BatchCancelledException(retries.stream().map(RetryScheduler.Retry::getUri).collect(Collectors.toList()));
+    }
+    logger.info("retrying {} executions", retries.size());
+    if (logger.isDebugEnabled()) {
+      retries.forEach(retry -> logger.debug("retrying execution: {} [attempt: {}]", retry.getUri(), retry.getAttempt()));
+    }
+    long start = System.nanoTime();
     try {
-      return service.processExecution(Arrays.stream(new String[] { executionUri }));
+      BatchResult results = new BatchResult();
+      ExecutionResultParser.parse(service.processExecutionStream(retries.stream().map(RetryScheduler.Retry::getUri), options), results);
+      metrics.recordRetryBatch(System.nanoTime() - start);
+      retries.forEach(retry -> {
+        boolean error = results.getErrors().containsKey(retry.getUri());
+        metrics.recordExecutions(retry.getName(), error ? 0 : 1, error ? 1 : 0);
+      });
+      return results;
     } catch (Exception ex) {
-      throw new RetryExecutionTaskException(executionUri, attempts, ex);
+      metrics.recordRetryBatch(System.nanoTime() - start);
+      retries.forEach(retry -> metrics.recordExecutions(retry.getName(), 0, 1));
+      throw new RetryExecutionTaskException(retries, ex);
     }
   }
 
-  public Integer getAttempts() {
-    return attempts;
-  }
-
-  public String getExecutionUri() {
-    return executionUri;
+  public List<RetryScheduler.Retry> getRetries() {
+    return retries;
   }
 }
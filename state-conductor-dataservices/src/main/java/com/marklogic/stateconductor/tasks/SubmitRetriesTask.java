@@ -0,0 +1,78 @@
+package com.marklogic.stateconductor.tasks;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marklogic.StateConductorService;
+import com.marklogic.stateconductor.config.StateConductorDriverConfig;
+import com.marklogic.stateconductor.metrics.DriverMetrics;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import com.marklogic.stateconductor.results.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Submits executions for retry as they come due in the {@link RetryScheduler}, batching together
+ * the executions which are due at the same time and belong to the same host.
+ */
+public class SubmitRetriesTask implements Runnable {
+
+  private static Logger logger = LoggerFactory.getLogger(SubmitRetriesTask.class);
+
+  private StateConductorDriverConfig config;
+  private RetryScheduler retries;
+  private CompletionService<BatchResult> completionService;
+  private InProgressRegistry inProgress;
+  private Function<String, StateConductorService> hostServices;
+  private DriverMetrics metrics;
+  private ObjectNode options;
+
+  /**
+   * @param hostServices returns the service to process a host's executions, given the host or null
+   */
+  public SubmitRetriesTask(StateConductorDriverConfig config, RetryScheduler retries,
+      CompletionService<BatchResult> completionService, InProgressRegistry inProgress,
+      Function<String, StateConductorService> hostServices, DriverMetrics metrics, ObjectNode options) {
+    this.config = config;
+    this.retries = retries;
+    this.completionService = completionService;
+    this.inProgress = inProgress;
+    this.hostServices = hostServices;
+    this.metrics = metrics;
+    this.options = options;
+  }
+
+  private void submit(String host, List<RetryScheduler.Retry> batch) {
+    try {
+      completionService.submit(new RetryExecutionTask(hostServices.apply(host), batch, metrics, options));
+      logger.info("Submitted retry task for {} executions", batch.size());
+    } catch (RejectedExecutionException e) {
+      // the pool is shutting down - release the executions so they can be picked up again later
+      logger.warn("unable to submit retry for {} executions: pool is shutting down", batch.size());
+      batch.forEach(retry -> inProgress.remove(retry.getUri()));
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      try {
+        List<RetryScheduler.Retry> due = retries.takeBatch(config.getBatchSize());
+        Map<String, List<RetryScheduler.Retry>> byHost = due.stream()
+          .collect(Collectors.groupingBy(retry -> retry.getHost() != null ? retry.getHost() : "", LinkedHashMap::new, Collectors.toList()));
+        byHost.forEach((host, batch) -> submit(host.isEmpty() ? null : host, batch));
+      } catch (InterruptedException e) {
+        logger.info("Stopping SubmitRetriesTask Thread...");
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
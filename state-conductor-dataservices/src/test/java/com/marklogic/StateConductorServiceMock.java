@@ -3,7 +3,10 @@ package com.marklogic;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -19,11 +22,46 @@ public class StateConductorServiceMock implements StateConductorService {
     return uris.stream();
   }
 
+  @Override
+  public Stream<String> getExecutionsAfter(String afterUri, Integer count, String names, Stream<String> status,
+      Stream<String> forestIds, String startDate, String endDate) {
+    int first = 1;
+    if (afterUri != null && afterUri.matches("/test/test\\d+\\.json")) {
+      first = Integer.parseInt(afterUri.replaceAll("\\D", "")) + 1;
+    }
+    List<String> uris = new ArrayList<>();
+    for (int i = first; i < first + count; i++) {
+      uris.add(String.format("/test/test%s.json", i));
+    }
+    return uris.stream();
+  }
+
+  @Override
+  public ObjectNode getOldestExecutions(String afterCreatedDate, String afterId, Integer count, String names,
+      Stream<String> status, Stream<String> forestIds) {
+    String afterUri = afterId != null ? String.format("/test/test%s.json", afterId) : null;
+    ObjectNode page = new ObjectNode(JsonNodeFactory.instance);
+    ArrayNode executions = page.putArray("executions");
+    getExecutionsAfter(afterUri, count, names, status, forestIds, null, null).forEach(uri -> {
+      executions.add(uri);
+      page.put("afterCreatedDate", "2020-01-01T00:00:00Z");
+      page.put("afterId", uri.replaceAll("\\D", ""));
+    });
+    return page;
+  }
+
   @Override
   public String createExecution(String uri, String name) {
     return UUID.randomUUID().toString();
   }
 
+  @Override
+  public Stream<String> createExecutions(Stream<String> uri, String name) {
+    List<String> ids = new ArrayList<>();
+    uri.forEach(value -> ids.add(UUID.randomUUID().toString()));
+    return ids.stream();
+  }
+
   @Override
   public ArrayNode processExecution(Stream<String> uri) {
     ArrayNode arr = new ArrayNode(JsonNodeFactory.instance);
@@ -38,6 +76,11 @@ public class StateConductorServiceMock implements StateConductorService {
     return arr;
   }
 
+  @Override
+  public InputStream processExecutionStream(Stream<String> uri, ObjectNode options) {
+    return new ByteArrayInputStream(processExecution(uri).toString().getBytes(StandardCharsets.UTF_8));
+  }
+
   @Override
   public ObjectNode getStateMachineStatus(Stream<String> names, String startDate, String endDate, Boolean detailed) {
     ObjectNode obj = new ObjectNode(JsonNodeFactory.instance);
@@ -71,4 +114,57 @@ public class StateConductorServiceMock implements StateConductorService {
     // TODO Auto-generated method stub
   }
 
+  // in-memory stand-in for the lease and heartbeat documents
+  private final Map<String, Long> driverHeartbeats = new HashMap<>();
+  private final Map<String, String> leaseOwners = new HashMap<>();
+  private final Map<String, Long> leaseExpiries = new HashMap<>();
+
+  @Override
+  public synchronized Stream<String> claimPartitions(String driverId, Stream<String> partitions, Integer leaseSeconds) {
+    long now = System.currentTimeMillis();
+    long expires = now + leaseSeconds * 1000L;
+
+    driverHeartbeats.values().removeIf(expiry -> expiry <= now);
+    driverHeartbeats.remove(driverId);
+    int liveDrivers = driverHeartbeats.size() + 1;
+    driverHeartbeats.put(driverId, expires);
+
+    List<String> all = partitions.collect(java.util.stream.Collectors.toList());
+    int share = (int) Math.ceil((double) all.size() / liveDrivers);
+    List<String> held = new ArrayList<>();
+    List<String> free = new ArrayList<>();
+    for (String partition : all) {
+      String owner = leaseOwners.get(partition);
+      if (driverId.equals(owner)) {
+        held.add(partition);
+      } else if (owner == null || leaseExpiries.get(partition) <= now) {
+        free.add(partition);
+      }
+    }
+
+    List<String> owned = new ArrayList<>(held.subList(0, Math.min(share, held.size())));
+    held.subList(owned.size(), held.size()).forEach(partition -> {
+      leaseOwners.remove(partition);
+      leaseExpiries.remove(partition);
+    });
+    owned.addAll(free.subList(0, Math.min(free.size(), Math.max(0, share - owned.size()))));
+    owned.forEach(partition -> {
+      leaseOwners.put(partition, driverId);
+      leaseExpiries.put(partition, expires);
+    });
+    return owned.stream();
+  }
+
+  @Override
+  public synchronized void releasePartitions(String driverId) {
+    leaseOwners.entrySet().removeIf(entry -> {
+      if (driverId.equals(entry.getValue())) {
+        leaseExpiries.remove(entry.getKey());
+        return true;
+      }
+      return false;
+    });
+    driverHeartbeats.remove(driverId);
+  }
+
 }
@@ -9,6 +9,8 @@ import com.marklogic.client.FailedRequestException;
 import com.marklogic.client.document.DocumentWriteSet;
 import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.ext.AbstractStateConductorTest;
+import com.marklogic.stateconductor.results.BatchResult;
+import com.marklogic.stateconductor.results.ExecutionResultParser;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,9 +19,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,6 +101,16 @@ public class StateConductorServiceTest extends AbstractStateConductorTest {
     assertEquals("/test/test10.json", uris[9].toString());
   }
 
+  @Test
+  public void testGetExecutionsAfterMock() {
+    Object[] uris = mockService.getExecutionsAfter(null, 2, null, null, null, null, null).toArray();
+    assertEquals(2, uris.length);
+    assertEquals("/test/test1.json", uris[0].toString());
+    uris = mockService.getExecutionsAfter(uris[1].toString(), 2, null, null, null, null, null).toArray();
+    assertEquals("/test/test3.json", uris[0].toString());
+    assertEquals("/test/test4.json", uris[1].toString());
+  }
+
   @Test
   public void testGetStateMachine() throws IOException {
     final String stateMachineName = "test-state-machine";
@@ -217,6 +233,91 @@ public class StateConductorServiceTest extends AbstractStateConductorTest {
     assertEquals(0, uris.length);
   }
 
+  @Test
+  public void testGetExecutionsAfter() throws IOException {
+    String[] status = new String[]{ "new", "working", "complete", "failed" };
+    List<String> all = Arrays.asList(service.getExecutions(1, 1000, "test-state-machine", Arrays.stream(status), null, null, null).toArray(String[]::new));
+    assertTrue(4 <= all.size());
+
+    // page through one uri at a time
+    List<String> paged = new ArrayList<>();
+    String cursor = null;
+    String[] page;
+    do {
+      page = service.getExecutionsAfter(cursor, 1, "test-state-machine", Arrays.stream(status), null, null, null).toArray(String[]::new);
+      assertTrue(page.length <= 1);
+      if (page.length > 0) {
+        assertTrue(cursor == null || page[0].compareTo(cursor) > 0, "pages are returned in uri order");
+        cursor = page[0];
+        paged.add(cursor);
+      }
+    } while (page.length > 0);
+
+    assertEquals(all.size(), paged.size());
+    assertTrue(paged.containsAll(all));
+
+    // a cursor past the last uri returns an empty page
+    page = service.getExecutionsAfter(paged.get(paged.size() - 1), 10, "test-state-machine", Arrays.stream(status), null, null, null).toArray(String[]::new);
+    assertEquals(0, page.length);
+  }
+
+  @Test
+  public void testGetOldestExecutions() throws IOException {
+    String[] status = new String[]{ "new", "working", "complete", "failed" };
+    List<String> all = Arrays.asList(service.getExecutions(1, 1000, "test-state-machine", Arrays.stream(status), null, null, null).toArray(String[]::new));
+    assertTrue(4 <= all.size());
+
+    // page through one execution at a time
+    List<String> paged = new ArrayList<>();
+    String afterCreatedDate = null;
+    String afterId = null;
+    OffsetDateTime lastCreated = null;
+    JsonNode page;
+    do {
+      page = service.getOldestExecutions(afterCreatedDate, afterId, 1, "test-state-machine", Arrays.stream(status), null);
+      assertTrue(page.get("executions").size() <= 1);
+      if (page.get("executions").size() > 0) {
+        String uri = page.get("executions").get(0).asText();
+        StateConductorExecution execution = getExecutionDocument(uri);
+        OffsetDateTime created = OffsetDateTime.parse(execution.getCreatedDate());
+        assertTrue(lastCreated == null || !created.isBefore(lastCreated), "pages are returned oldest first");
+        assertEquals(execution.getId(), page.get("afterId").asText());
+        lastCreated = created;
+        afterCreatedDate = page.get("afterCreatedDate").asText();
+        afterId = page.get("afterId").asText();
+        paged.add(uri);
+      }
+    } while (page.get("executions").size() > 0);
+
+    assertEquals(all.size(), paged.size());
+    assertTrue(paged.containsAll(all));
+  }
+
+  @Test
+  public void testClaimPartitions() {
+    String[] partitions = new String[]{ "test-partition1", "test-partition2" };
+    try {
+      String[] owned = service.claimPartitions("test-driver1", Arrays.stream(partitions), 30).toArray(String[]::new);
+      assertEquals(2, owned.length);
+
+      // the second driver must wait for the first to give up its excess partitions
+      owned = service.claimPartitions("test-driver2", Arrays.stream(partitions), 30).toArray(String[]::new);
+      assertEquals(0, owned.length);
+      owned = service.claimPartitions("test-driver1", Arrays.stream(partitions), 30).toArray(String[]::new);
+      assertEquals(1, owned.length);
+      String[] owned2 = service.claimPartitions("test-driver2", Arrays.stream(partitions), 30).toArray(String[]::new);
+      assertEquals(1, owned2.length);
+      assertNotEquals(owned[0], owned2[0]);
+
+      service.releasePartitions("test-driver1");
+      owned2 = service.claimPartitions("test-driver2", Arrays.stream(partitions), 30).toArray(String[]::new);
+      assertEquals(2, owned2.length);
+    } finally {
+      service.releasePartitions("test-driver1");
+      service.releasePartitions("test-driver2");
+    }
+  }
+
   @Test
   public void testCreateExecutionMock() {
     String resp = mockService.createExecution(data2Uri, "test-state-machine");
@@ -243,6 +344,22 @@ public class StateConductorServiceTest extends AbstractStateConductorTest {
     });
   }
 
+  @Test
+  public void testCreateExecutions() throws IOException {
+    List<String> ids = service.createExecutions(Arrays.stream(new String[]{ data1Uri, data2Uri }), "test-state-machine")
+      .collect(Collectors.toList());
+    assertEquals(2, ids.size());
+
+    StateConductorExecution executionDoc = getExecutionDocument("/stateConductorExecution/" + ids.get(1) + ".json");
+    assertEquals(ids.get(1), executionDoc.getId());
+    assertEquals(data2Uri, executionDoc.getUri());
+    assertEquals("test-state-machine", executionDoc.getName());
+
+    assertThrows(FailedRequestException.class, () -> {
+      service.createExecutions(Arrays.stream(new String[]{ data1Uri, "/my/fake/document.json" }), "test-state-machine").count();
+    });
+  }
+
   @Test
   public void testProcessExecutionMock() {
     ArrayNode resp = mockService.processExecution(Arrays.stream(new String[]{"/test.json"}));
@@ -327,6 +444,34 @@ public class StateConductorServiceTest extends AbstractStateConductorTest {
     assertEquals(false, resp.get(4).get("result").asBoolean());
   }
 
+  @Test
+  public void testProcessExecutionStream() throws IOException {
+    BatchResult result = new BatchResult();
+    String[] executions = new String[] {execution1Uri, badExecution1Uri};
+
+    int count = ExecutionResultParser.parse(service.processExecutionStream(Arrays.stream(executions), null), result);
+
+    assertEquals(2, count);
+    assertEquals(Arrays.asList(execution1Uri, badExecution1Uri), result.getExecutionUris());
+    assertEquals("working", getExecutionDocument(execution1Uri).getStatus());
+    assertEquals("failed", getExecutionDocument(badExecution1Uri).getStatus());
+  }
+
+  @Test
+  public void testProcessExecutionStreamInParallel() throws IOException {
+    BatchResult result = new BatchResult();
+    String[] executions = new String[] {execution1Uri, execution2Uri, execution3Uri, badExecution1Uri};
+    ObjectNode options = new ObjectMapper().createObjectNode();
+    options.put("parallelism", 3);
+
+    ExecutionResultParser.parse(service.processExecutionStream(Arrays.stream(executions), options), result);
+
+    // the results are in the same order as the batch
+    assertEquals(Arrays.asList(executions), result.getExecutionUris());
+    assertEquals("working", getExecutionDocument(execution1Uri).getStatus());
+    assertEquals("failed", getExecutionDocument(badExecution1Uri).getStatus());
+  }
+
   @Test
   public void testProcessBadExecution() throws IOException {
     ArrayNode resp = null;
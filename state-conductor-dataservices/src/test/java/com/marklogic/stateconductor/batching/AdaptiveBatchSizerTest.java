@@ -0,0 +1,54 @@
+package com.marklogic.stateconductor.batching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveBatchSizerTest {
+
+  @Test
+  public void testGrowsTowardMaxWhileUnderTarget() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(5, 1, 8, 1000L, 0.1);
+    for (int i = 0; i < 10; i++) {
+      sizer.record(sizer.getBatchSize(), 50L, 0);
+    }
+    assertEquals(8, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testPartialBatchesDoNotGrow() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(5, 1, 100, 1000L, 0.1);
+    sizer.record(2, 50L, 0);
+    sizer.record(4, 50L, 0);
+    assertEquals(5, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testShrinksOnSlowBatches() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(40, 1, 100, 1000L, 0.1);
+    sizer.record(40, 2000L, 0);
+    assertEquals(20, sizer.getBatchSize());
+
+    // batches dispatched before the decrease don't shrink it again
+    sizer.record(40, 2000L, 0);
+    assertEquals(20, sizer.getBatchSize());
+
+    sizer.record(20, 2000L, 0);
+    assertEquals(10, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testShrinksOnErrorsWithinBounds() {
+    AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(4, 2, 100, 1000L, 0.1);
+    sizer.record(4, 10L, 1);
+    assertEquals(2, sizer.getBatchSize());
+    sizer.record(2, 10L, 2);
+    assertEquals(2, sizer.getBatchSize(), "never shrinks below the minimum");
+  }
+
+  @Test
+  public void testInvalidBounds() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(5, 0, 10, 1000L, 0.1));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSizer(5, 10, 5, 1000L, 0.1));
+  }
+}
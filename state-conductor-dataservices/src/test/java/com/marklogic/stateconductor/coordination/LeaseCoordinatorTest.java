@@ -0,0 +1,83 @@
+package com.marklogic.stateconductor.coordination;
+
+import com.marklogic.StateConductorServiceMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaseCoordinatorTest {
+
+  private static final List<String> PARTITIONS = Arrays.asList("forest1", "forest2", "forest3", "forest4");
+
+  private StateConductorServiceMock service;
+
+  static class RecordingListener implements PartitionListener {
+    Set<String> owned = new HashSet<>();
+
+    @Override
+    public void partitionAcquired(String partition) {
+      assertTrue(owned.add(partition), "partition acquired twice: " + partition);
+    }
+
+    @Override
+    public void partitionReleased(String partition) {
+      assertTrue(owned.remove(partition), "unowned partition released: " + partition);
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    service = new StateConductorServiceMock();
+  }
+
+  @Test
+  public void testRebalancesBetweenDrivers() {
+    RecordingListener listenerA = new RecordingListener();
+    RecordingListener listenerB = new RecordingListener();
+    LeaseCoordinator driverA = new LeaseCoordinator(service, "driverA", PARTITIONS, 30, listenerA);
+    LeaseCoordinator driverB = new LeaseCoordinator(service, "driverB", PARTITIONS, 30, listenerB);
+
+    // a lone driver owns everything
+    assertEquals(4, driverA.heartbeat().size());
+    assertEquals(4, listenerA.owned.size());
+
+    // a new driver can't take leases which are still held
+    assertEquals(0, driverB.heartbeat().size());
+
+    // the first driver gives up everything above its fair share...
+    assertEquals(2, driverA.heartbeat().size());
+    assertEquals(2, listenerA.owned.size());
+    // ...which the new driver claims
+    assertEquals(2, driverB.heartbeat().size());
+
+    Set<String> all = new HashSet<>(listenerA.owned);
+    all.addAll(listenerB.owned);
+    assertEquals(new HashSet<>(PARTITIONS), all, "the drivers own every partition between them");
+    assertTrue(Collections.disjoint(listenerA.owned, listenerB.owned), "no partition is owned twice");
+
+    // leases are stable once balanced
+    assertEquals(listenerA.owned, driverA.heartbeat());
+    assertEquals(listenerB.owned, driverB.heartbeat());
+
+    // shutting down hands partitions over
+    driverA.release();
+    assertTrue(listenerA.owned.isEmpty());
+    assertEquals(4, driverB.heartbeat().size());
+  }
+
+  @Test
+  public void testExpiredLeasesAreTakenOver() {
+    RecordingListener listenerA = new RecordingListener();
+    RecordingListener listenerB = new RecordingListener();
+    // a zero second lease expires as soon as it's granted, as if the driver had died
+    LeaseCoordinator driverA = new LeaseCoordinator(service, "driverA", PARTITIONS, 0, listenerA);
+    LeaseCoordinator driverB = new LeaseCoordinator(service, "driverB", PARTITIONS, 30, listenerB);
+
+    assertEquals(4, driverA.heartbeat().size());
+    assertEquals(4, driverB.heartbeat().size());
+    assertEquals(new HashSet<>(PARTITIONS), listenerB.owned);
+  }
+}
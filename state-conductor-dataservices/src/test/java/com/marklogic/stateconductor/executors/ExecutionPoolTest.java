@@ -0,0 +1,110 @@
+package com.marklogic.stateconductor.executors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionPoolTest {
+
+  private static boolean virtualThreadsAvailable() {
+    try {
+      java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  @Test
+  public void testResizableSemaphore() throws Exception {
+    ResizableSemaphore semaphore = new ResizableSemaphore(2);
+    assertTrue(semaphore.tryAcquire(2));
+    assertFalse(semaphore.tryAcquire());
+
+    semaphore.setMaxPermits(3);
+    assertEquals(3, semaphore.getMaxPermits());
+    assertTrue(semaphore.tryAcquire());
+
+    // shrinking below the held permits takes effect as they're released
+    semaphore.setMaxPermits(1);
+    semaphore.release(2);
+    assertFalse(semaphore.tryAcquire());
+    semaphore.release();
+    assertTrue(semaphore.tryAcquire());
+  }
+
+  @Test
+  public void testPlatformThreadPoolResize() throws Exception {
+    PlatformThreadExecutionPool pool = new PlatformThreadExecutionPool(2);
+    pool.setConcurrency(8);
+    assertEquals(8, pool.getConcurrency());
+    pool.setConcurrency(1);
+    assertEquals(1, pool.getConcurrency());
+
+    ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<>(pool);
+    completionService.submit(() -> 42);
+    assertEquals(42, (int) completionService.take().get());
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testVirtualThreadPoolLimitsConcurrency() throws Exception {
+    if (!virtualThreadsAvailable()) {
+      IllegalStateException ex = assertThrows(IllegalStateException.class, () -> new VirtualThreadExecutionPool(2));
+      assertTrue(ex.getMessage().contains("Java 21"));
+      return;
+    }
+
+    VirtualThreadExecutionPool pool = new VirtualThreadExecutionPool(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(10);
+    for (int i = 0; i < 10; i++) {
+      pool.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertTrue(maxRunning.get() <= 2, "no more than 2 tasks run at once");
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testVirtualThreadPoolRunsTasksInterruptedBeforeStarting() throws Exception {
+    if (!virtualThreadsAvailable()) {
+      return;
+    }
+
+    VirtualThreadExecutionPool pool = new VirtualThreadExecutionPool(1);
+    ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(pool);
+    CountDownLatch started = new CountDownLatch(1);
+    completionService.submit(() -> {
+      started.countDown();
+      new CountDownLatch(1).await();
+      return false;
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Future<Boolean> waiting = completionService.submit(() -> Thread.interrupted());
+    while (pool.getQueuedTaskCount() == 0) {
+      Thread.sleep(5);
+    }
+
+    pool.shutdownNow();
+    assertTrue(waiting.get(5, TimeUnit.SECONDS), "the waiting task runs, and sees it was interrupted");
+  }
+}
@@ -0,0 +1,83 @@
+package com.marklogic.stateconductor.loaders;
+
+import com.marklogic.StateConductorServiceMock;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkExecutionLoaderTest {
+
+  static class ChunkRecordingService extends StateConductorServiceMock {
+    final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public Stream<String> createExecutions(Stream<String> uri, String name) {
+      List<String> uris = uri.collect(Collectors.toList());
+      if (uris.contains("/fail.json")) {
+        throw new RuntimeException("failed");
+      }
+      chunkSizes.add(uris.size());
+      return super.createExecutions(uris.stream(), name);
+    }
+  }
+
+  private static Stream<String> uris(int count) {
+    return IntStream.rangeClosed(1, count).mapToObj(i -> String.format("/test/test%s.json", i));
+  }
+
+  @Test
+  public void testLoadsInChunks() throws Exception {
+    ChunkRecordingService service = new ChunkRecordingService();
+    BulkExecutionLoader.Summary summary = new BulkExecutionLoader(service, 1000, 2).load("test", uris(2500));
+
+    assertEquals(2500, summary.getCreated());
+    assertEquals(0, summary.getFailed());
+    List<Integer> sizes = new ArrayList<>(service.chunkSizes);
+    Collections.sort(sizes);
+    assertEquals(Arrays.asList(500, 1000, 1000), sizes);
+  }
+
+  @Test
+  public void testReportsFailedChunks() throws Exception {
+    ChunkRecordingService service = new ChunkRecordingService();
+    Stream<String> uris = Stream.concat(uris(10), Stream.of("/fail.json"));
+    BulkExecutionLoader.Summary summary = new BulkExecutionLoader(service, 4, 1).load("test", uris);
+
+    assertEquals(8, summary.getCreated());
+    assertEquals(3, summary.getFailed());
+    assertTrue(summary.getFailedUris().contains("/fail.json"));
+    assertTrue(summary.getFailedUris().contains("/test/test10.json"), "the failed chunk's uris are all reported");
+  }
+
+  @Test
+  public void testJobLoadsUrisFromFile() throws Exception {
+    ChunkRecordingService service = new ChunkRecordingService();
+    Path file = Files.createTempFile("bulk-load-test-", ".txt");
+    Files.write(file, Arrays.asList("/test/test1.json", "", "  /test/test2.json  ", "/fail.json"), StandardCharsets.UTF_8);
+    BulkLoadJob job = new BulkLoadJob("test", file, new BulkExecutionLoader(service, 2, 1));
+    assertEquals(BulkLoadJob.Status.QUEUED, job.getStatus());
+
+    job.run();
+
+    assertEquals(BulkLoadJob.Status.FINISHED, job.getStatus());
+    assertEquals(2, job.getSummary().getCreated());
+    assertEquals(Arrays.asList("/fail.json"), job.getSummary().getFailedUris());
+    assertFalse(Files.exists(file), "the uris file is deleted once loaded");
+  }
+
+  @Test
+  public void testInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new BulkExecutionLoader(new StateConductorServiceMock(), 0, 1));
+  }
+}
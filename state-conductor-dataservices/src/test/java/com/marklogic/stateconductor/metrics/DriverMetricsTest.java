@@ -0,0 +1,55 @@
+package com.marklogic.stateconductor.metrics;
+
+import com.marklogic.stateconductor.batching.FixedBatchSizer;
+import com.marklogic.stateconductor.executors.PlatformThreadExecutionPool;
+import com.marklogic.stateconductor.queues.FairExecutionQueue;
+import com.marklogic.stateconductor.queues.InProgressRegistry;
+import com.marklogic.stateconductor.queues.RetryScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DriverMetricsTest {
+
+  @Test
+  public void testRecordBatch() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    DriverMetrics metrics = new DriverMetrics(registry);
+
+    metrics.recordBatch("a", 10, TimeUnit.MILLISECONDS.toNanos(200), 2);
+    metrics.recordBatch("a", 5, TimeUnit.MILLISECONDS.toNanos(100), 0);
+    metrics.recordBatch("b", 1, TimeUnit.MILLISECONDS.toNanos(50), 1);
+
+    assertEquals(2, registry.get("stateconductor.driver.processExecution").tag("name", "a").timer().count());
+    assertEquals(200, registry.get("stateconductor.driver.processExecution").tag("name", "a").timer().max(TimeUnit.MILLISECONDS), 1);
+    assertEquals(15, registry.get("stateconductor.driver.batchSize").tag("name", "a").summary().totalAmount());
+    assertEquals(13, registry.get("stateconductor.driver.executions").tag("name", "a").tag("outcome", "success").counter().count());
+    assertEquals(2, registry.get("stateconductor.driver.executions").tag("name", "a").tag("outcome", "error").counter().count());
+    assertEquals(1, registry.get("stateconductor.driver.executions").tag("name", "b").tag("outcome", "error").counter().count());
+  }
+
+  @Test
+  public void testGauges() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    DriverMetrics metrics = new DriverMetrics(registry);
+    FairExecutionQueue queue = new FairExecutionQueue(10, new HashMap<>(), new HashMap<>(), name -> new FixedBatchSizer(5));
+    InProgressRegistry inProgress = new InProgressRegistry();
+    RetryScheduler retries = new RetryScheduler(60000, 60000, 2.0, 0);
+    PlatformThreadExecutionPool pool = new PlatformThreadExecutionPool(4);
+    metrics.bind(queue, inProgress, retries, pool);
+
+    inProgress.add("/a/1.json");
+    inProgress.add("/a/2.json");
+    retries.schedule("/a/2.json", "a", null, 1);
+
+    assertEquals(2, registry.get("stateconductor.driver.inProgress").gauge().value());
+    assertEquals(1, registry.get("stateconductor.driver.retries").gauge().value());
+    assertEquals(4, registry.get("stateconductor.driver.pool.concurrency").gauge().value());
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,193 @@
+package com.marklogic.stateconductor.queues;
+
+import com.marklogic.stateconductor.batching.FixedBatchSizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FairExecutionQueueTest {
+
+  private FairExecutionQueue newQueue(int capacity, Map<String, Integer> weights, Map<String, Integer> concurrency) {
+    return new FairExecutionQueue(capacity, weights, concurrency, name -> new FixedBatchSizer(1));
+  }
+
+  @Test
+  public void testBacklogDoesNotStarveOtherStateMachines() throws Exception {
+    FairExecutionQueue queue = newQueue(1000, new HashMap<>(), new HashMap<>());
+    for (int i = 0; i < 100; i++) {
+      queue.put("backfill", "/backfill/" + i + ".json");
+    }
+    queue.put("realtime", "/realtime/1.json");
+    queue.put("realtime", "/realtime/2.json");
+
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      ExecutionBatch batch = queue.takeBatch();
+      order.add(batch.getName());
+      batch.release();
+    }
+    assertEquals(Arrays.asList("backfill", "realtime", "backfill", "realtime", "backfill", "backfill"), order);
+  }
+
+  @Test
+  public void testWeights() throws Exception {
+    Map<String, Integer> weights = new HashMap<>();
+    weights.put("heavy", 3);
+    FairExecutionQueue queue = newQueue(1000, weights, new HashMap<>());
+    for (int i = 0; i < 100; i++) {
+      queue.put("heavy", "/heavy/" + i + ".json");
+      queue.put("light", "/light/" + i + ".json");
+    }
+
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 40; i++) {
+      ExecutionBatch batch = queue.takeBatch();
+      counts.merge(batch.getName(), batch.getUris().size(), Integer::sum);
+      batch.release();
+    }
+    assertEquals(30, (int) counts.get("heavy"));
+    assertEquals(10, (int) counts.get("light"));
+  }
+
+  @Test
+  public void testConcurrencyLimit() throws Exception {
+    Map<String, Integer> concurrency = new HashMap<>();
+    concurrency.put("capped", 1);
+    FairExecutionQueue queue = newQueue(1000, new HashMap<>(), concurrency);
+    queue.put("capped", "/capped/1.json");
+    queue.put("capped", "/capped/2.json");
+
+    ExecutionBatch first = queue.takeBatch();
+    assertEquals("capped", first.getName());
+    assertNull(queue.pollBatch(50, TimeUnit.MILLISECONDS), "capped state machine has no free slot");
+
+    first.release();
+    // releasing twice doesn't free a second slot
+    first.release();
+    ExecutionBatch second = queue.pollBatch(50, TimeUnit.MILLISECONDS);
+    assertNotNull(second);
+    assertEquals(Collections.singletonList("/capped/2.json"), second.getUris());
+  }
+
+  @Test
+  public void testCapacityIsSharedBetweenStateMachines() throws Exception {
+    FairExecutionQueue queue = new FairExecutionQueue(4, new HashMap<>(), new HashMap<>(), name -> new FixedBatchSizer(5));
+    assertEquals(4, queue.remainingCapacity("a"), "a single state machine may use the whole buffer");
+    queue.put("a", "/a/1.json");
+    queue.put("a", "/a/2.json");
+    assertEquals(2, queue.remainingCapacity("a"));
+    assertEquals(2, queue.remainingCapacity("b"), "a second state machine gets an equal share");
+
+    queue.putAll("b", null, null, Arrays.asList("/b/1.json", "/b/2.json"));
+    assertEquals(0, queue.remainingCapacity("a"));
+    assertEquals(0, queue.remainingCapacity("c"), "the total stays bounded however many state machines there are");
+    assertEquals(4, queue.size());
+
+    ExecutionBatch batch = queue.takeBatch();
+    assertEquals(2, batch.getUris().size(), "takes up to the batch size from one state machine");
+    assertEquals(2, queue.size());
+    assertEquals(2, queue.remainingCapacity("c"));
+  }
+
+  @Test
+  public void testPutAllWaitsForRoom() throws Exception {
+    FairExecutionQueue queue = new FairExecutionQueue(2, new HashMap<>(), new HashMap<>(), name -> new FixedBatchSizer(2));
+    queue.putAll("a", null, null, Arrays.asList("/a/1.json", "/a/2.json"));
+
+    Thread putter = new Thread(() -> {
+      try {
+        queue.putAll("a", null, null, Arrays.asList("/a/3.json", "/a/4.json"));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    putter.start();
+    putter.join(50);
+    assertTrue(putter.isAlive(), "waits while the buffer is full");
+    assertEquals(2, queue.size());
+
+    queue.takeBatch().release();
+    putter.join(5000);
+    assertFalse(putter.isAlive());
+    assertEquals(Arrays.asList("/a/3.json", "/a/4.json"), queue.takeBatch().getUris(), "the page is added whole");
+  }
+
+  @Test
+  public void testHostAffinity() throws Exception {
+    FairExecutionQueue queue = new FairExecutionQueue(1000, new HashMap<>(), new HashMap<>(), 1, name -> new FixedBatchSizer(5));
+    queue.put("a", "host1", "/a/1.json");
+    queue.put("a", "host1", "/a/2.json");
+    queue.put("a", "host2", "/a/3.json");
+    queue.put("a", "host1", "/a/4.json");
+
+    ExecutionBatch first = queue.takeBatch();
+    assertEquals("host1", first.getHost());
+    assertEquals(Arrays.asList("/a/1.json", "/a/2.json", "/a/4.json"), first.getUris(), "batches only contain one host's executions");
+
+    ExecutionBatch second = queue.takeBatch();
+    assertEquals("host2", second.getHost());
+
+    // each host is limited to one in-flight batch
+    queue.put("a", "host1", "/a/5.json");
+    assertNull(queue.pollBatch(50, TimeUnit.MILLISECONDS));
+    first.release();
+    ExecutionBatch third = queue.pollBatch(50, TimeUnit.MILLISECONDS);
+    assertNotNull(third);
+    assertEquals("host1", third.getHost());
+
+    // executions without a host aren't subject to the host limit
+    queue.put("a", "/a/6.json");
+    ExecutionBatch fourth = queue.pollBatch(50, TimeUnit.MILLISECONDS);
+    assertNotNull(fourth);
+    assertNull(fourth.getHost());
+  }
+
+  @Test
+  public void testAwaitBelow() throws Exception {
+    FairExecutionQueue queue = new FairExecutionQueue(10, new HashMap<>(), new HashMap<>(), name -> new FixedBatchSizer(2));
+    queue.put("a", "/a/1.json");
+    queue.put("a", "/a/2.json");
+    queue.put("a", "/a/3.json");
+    queue.put("b", "/b/1.json");
+
+    assertEquals(3, queue.size("a"));
+    assertTrue(queue.awaitBelow(Arrays.asList("b"), 2, 10, TimeUnit.MILLISECONDS));
+    assertFalse(queue.awaitBelow(Arrays.asList("a"), 2, 10, TimeUnit.MILLISECONDS), "times out while above the low-water mark");
+
+    Thread taker = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+        while (queue.size("a") > 1) {
+          queue.takeBatch().release();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    taker.start();
+    assertTrue(queue.awaitBelow(Arrays.asList("a"), 2, 5, TimeUnit.SECONDS), "wakes once batches have been dispatched");
+    taker.join();
+  }
+
+  @Test
+  public void testRemovePartition() throws Exception {
+    FairExecutionQueue queue = newQueue(1000, new HashMap<>(), new HashMap<>());
+    queue.put("a", "host1", "forest1", "/a/1.json");
+    queue.put("a", "host1", "forest2", "/a/2.json");
+    queue.put("b", "host2", "forest1", "/b/1.json");
+    queue.put("b", null, "/b/2.json");
+
+    List<String> removed = queue.removePartition("forest1");
+    assertEquals(new HashSet<>(Arrays.asList("/a/1.json", "/b/1.json")), new HashSet<>(removed));
+    assertEquals(2, queue.size());
+
+    Set<String> remaining = new HashSet<>();
+    remaining.addAll(queue.takeBatch().getUris());
+    remaining.addAll(queue.takeBatch().getUris());
+    assertEquals(new HashSet<>(Arrays.asList("/a/2.json", "/b/2.json")), remaining);
+    assertTrue(queue.removePartition("forest1").isEmpty());
+  }
+}
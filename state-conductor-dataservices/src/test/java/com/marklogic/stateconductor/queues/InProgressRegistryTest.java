@@ -0,0 +1,66 @@
+package com.marklogic.stateconductor.queues;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InProgressRegistryTest {
+
+  @Test
+  public void testAddAndRemove() {
+    InProgressRegistry registry = new InProgressRegistry();
+
+    assertTrue(registry.add("/test/execution1.json", 1000L));
+    assertFalse(registry.add("/test/execution1.json", 2000L), "already in-progress executions are not re-added");
+    assertTrue(registry.add("/test/execution2.json", 2000L));
+    assertEquals(2, registry.size());
+    assertTrue(registry.contains("/test/execution1.json"));
+
+    registry.remove("/test/execution1.json");
+    assertFalse(registry.contains("/test/execution1.json"));
+    assertEquals(1, registry.size());
+
+    // removing an unknown execution is a no-op
+    registry.remove("/test/unknown.json");
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  public void testPurgeExpired() {
+    InProgressRegistry registry = new InProgressRegistry();
+    registry.add("/test/execution1.json", 1000L);
+    registry.add("/test/execution2.json", 5000L);
+    registry.add("/test/execution3.json", 9000L);
+
+    // nothing is old enough yet
+    assertEquals(0, registry.purgeExpired(10000L, 10000L).size());
+
+    List<String> expired = registry.purgeExpired(4000L, 10000L);
+    assertEquals(2, expired.size());
+    assertTrue(expired.contains("/test/execution1.json"));
+    assertTrue(expired.contains("/test/execution2.json"));
+    assertFalse(registry.contains("/test/execution1.json"));
+    assertTrue(registry.contains("/test/execution3.json"));
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  public void testPurgeSkipsCompletedAndReAddedExecutions() {
+    InProgressRegistry registry = new InProgressRegistry();
+    registry.add("/test/execution1.json", 1000L);
+    registry.add("/test/execution2.json", 1000L);
+
+    // execution1 completes, then is fetched again later
+    registry.remove("/test/execution1.json");
+    registry.add("/test/execution1.json", 8000L);
+    // execution2 completes
+    registry.remove("/test/execution2.json");
+
+    List<String> expired = registry.purgeExpired(5000L, 10000L);
+    assertEquals(0, expired.size());
+    assertTrue(registry.contains("/test/execution1.json"), "re-added execution is not purged by its old entry");
+    assertEquals(1, registry.size());
+  }
+}
@@ -0,0 +1,67 @@
+package com.marklogic.stateconductor.queues;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetrySchedulerTest {
+
+  @Test
+  public void testExponentialBackoff() {
+    Random noJitter = new Random() {
+      @Override
+      public double nextDouble() {
+        return 0;
+      }
+    };
+    RetryScheduler scheduler = new RetryScheduler(100, 1000, 2.0, 0.5, noJitter);
+    assertEquals(100, scheduler.delayFor(1));
+    assertEquals(200, scheduler.delayFor(2));
+    assertEquals(400, scheduler.delayFor(3));
+    assertEquals(1000, scheduler.delayFor(5), "delays are capped at the max delay");
+  }
+
+  @Test
+  public void testJitter() {
+    RetryScheduler scheduler = new RetryScheduler(1000, 1000, 2.0, 0.5, new Random(42));
+    for (int i = 0; i < 100; i++) {
+      long delay = scheduler.delayFor(1);
+      assertTrue(delay > 500 && delay <= 1000, "jitter reduces the delay by at most half: " + delay);
+    }
+  }
+
+  @Test
+  public void testTakeBatch() throws Exception {
+    RetryScheduler scheduler = new RetryScheduler(0, 0, 2.0, 0);
+    scheduler.schedule("/a/1.json", "a", null, 1);
+    scheduler.schedule("/a/2.json", "a", "host1", 2);
+    scheduler.schedule("/a/3.json", "a", null, 1);
+    assertEquals(3, scheduler.size());
+
+    List<RetryScheduler.Retry> batch = scheduler.takeBatch(2);
+    assertEquals(2, batch.size());
+    assertEquals(1, scheduler.takeBatch(5).size());
+    assertEquals(0, scheduler.size());
+  }
+
+  @Test
+  public void testNotDueUntilDelayElapses() throws Exception {
+    RetryScheduler scheduler = new RetryScheduler(200, 200, 2.0, 0);
+    long start = System.currentTimeMillis();
+    scheduler.schedule("/a/1.json", "a", null, 1);
+    RetryScheduler.Retry retry = scheduler.takeBatch(5).get(0);
+    assertTrue(System.currentTimeMillis() - start >= 190);
+    assertEquals("/a/1.json", retry.getUri());
+    assertEquals(1, retry.getAttempt());
+  }
+
+  @Test
+  public void testInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new RetryScheduler(1000, 100, 2.0, 0.5));
+    assertThrows(IllegalArgumentException.class, () -> new RetryScheduler(100, 1000, 0.5, 0.5));
+    assertThrows(IllegalArgumentException.class, () -> new RetryScheduler(100, 1000, 2.0, 1.5));
+  }
+}
@@ -0,0 +1,52 @@
+package com.marklogic.stateconductor.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+  @Test
+  public void testOpensAfterConsecutiveFailures() {
+    AtomicLong now = new AtomicLong(0);
+    CircuitBreaker breaker = new CircuitBreaker("test", 3, 1000, now::get);
+
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "a success resets the failure count");
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  public void testHalfOpenTrial() {
+    AtomicLong now = new AtomicLong(0);
+    CircuitBreaker breaker = new CircuitBreaker("test", 1, 1000, now::get);
+    breaker.onFailure();
+
+    now.set(999);
+    assertFalse(breaker.tryAcquire());
+
+    now.set(1000);
+    assertTrue(breaker.tryAcquire(), "lets a trial call through once open long enough");
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(), "only one trial call at a time");
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "a failed trial re-opens the breaker");
+    assertFalse(breaker.tryAcquire());
+
+    now.set(2000);
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+  }
+}
@@ -0,0 +1,87 @@
+package com.marklogic.stateconductor.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientConcurrencyLimiterTest {
+
+  private void call(GradientConcurrencyLimiter limiter, int concurrency, long millis, boolean overloaded) throws Exception {
+    for (int i = 0; i < concurrency; i++) {
+      limiter.acquire();
+    }
+    for (int i = 0; i < concurrency; i++) {
+      limiter.release(millis, TimeUnit.MILLISECONDS, overloaded);
+    }
+  }
+
+  @Test
+  public void testGrowsWhileLatencyIsSteady() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100);
+    for (int i = 0; i < 20; i++) {
+      call(limiter, limiter.getLimit(), 100, false);
+    }
+    assertTrue(limiter.getLimit() > 10, "limit grew to " + limiter.getLimit());
+    assertTrue(limiter.getLimit() <= 100);
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testDoesNotGrowWhileUnused() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100);
+    for (int i = 0; i < 20; i++) {
+      call(limiter, 1, 100, false);
+    }
+    assertEquals(10, limiter.getLimit());
+  }
+
+  @Test
+  public void testShrinksAsLatencyIncreases() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 1, 100);
+    call(limiter, 50, 100, false);
+    int before = limiter.getLimit();
+    for (int i = 0; i < 10; i++) {
+      call(limiter, limiter.getLimit(), 1000, false);
+    }
+    assertTrue(limiter.getLimit() < before, "limit shrank to " + limiter.getLimit());
+  }
+
+  @Test
+  public void testHalvesWhenOverloaded() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(40, 4, 100);
+    call(limiter, 1, 100, true);
+    assertEquals(20, limiter.getLimit());
+    for (int i = 0; i < 10; i++) {
+      call(limiter, 1, 100, true);
+    }
+    assertEquals(4, limiter.getLimit(), "never drops below the minimum limit");
+  }
+
+  @Test
+  public void testBlocksAtLimit() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(1, 1, 1);
+    limiter.acquire();
+    Thread waiter = new Thread(() -> {
+      try {
+        limiter.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+    waiter.join(100);
+    assertTrue(waiter.isAlive(), "waits for a permit");
+    limiter.release(10, TimeUnit.MILLISECONDS, false);
+    waiter.join(1000);
+    assertFalse(waiter.isAlive());
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  public void testInvalidLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimiter(10, 0, 100));
+    assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimiter(10, 20, 10));
+  }
+}
@@ -0,0 +1,32 @@
+package com.marklogic.stateconductor.resilience;
+
+import com.marklogic.StateConductorServiceMock;
+import com.marklogic.stateconductor.results.BatchResult;
+import com.marklogic.stateconductor.results.ExecutionResultParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResilientStateConductorServiceTest {
+
+  @Test
+  public void testStreamHoldsPermitUntilClosed() throws Exception {
+    GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(2, 1, 10);
+    ResilientStateConductorService service = new ResilientStateConductorService("test", new StateConductorServiceMock(),
+      limiter, null);
+
+    InputStream response = service.processExecutionStream(Stream.of("/a/1.json", "/a/2.json"), null);
+    assertEquals(1, limiter.getInFlight(), "the permit is held while the response is read");
+
+    BatchResult results = new BatchResult();
+    ExecutionResultParser.parse(response, results);
+    assertEquals(2, results.size());
+    assertEquals(0, limiter.getInFlight(), "closing the response releases the permit");
+
+    response.close();
+    assertEquals(0, limiter.getInFlight(), "the permit is only released once");
+  }
+}
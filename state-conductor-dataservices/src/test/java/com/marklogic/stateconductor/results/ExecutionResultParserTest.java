@@ -0,0 +1,45 @@
+package com.marklogic.stateconductor.results;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionResultParserTest {
+
+  private InputStream json(String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    BatchResult result = new BatchResult();
+    int count = ExecutionResultParser.parse(json("[" +
+      "{\"execution\":\"/a/1.json\",\"result\":true}," +
+      "{\"result\":{\"nested\":[1,2,{\"execution\":\"ignored\"}]},\"execution\":\"/a/2.json\",\"error\":{\"name\":\"Error\",\"stack\":[\"a\",\"b\"]}}," +
+      "{\"execution\":\"/a/3.json\",\"result\":false,\"error\":null}" +
+      "]"), result);
+
+    assertEquals(3, count);
+    assertEquals(Arrays.asList("/a/1.json", "/a/2.json", "/a/3.json"), result.getExecutionUris());
+    assertEquals(1, result.getErrorCount());
+    assertEquals("{\"name\":\"Error\",\"stack\":[\"a\",\"b\"]}", result.getErrors().get("/a/2.json"));
+  }
+
+  @Test
+  public void testParseEmpty() throws Exception {
+    BatchResult result = new BatchResult();
+    assertEquals(0, ExecutionResultParser.parse(json("[]"), result));
+    assertEquals(0, result.size());
+  }
+
+  @Test
+  public void testParseInvalid() {
+    assertThrows(IOException.class, () -> ExecutionResultParser.parse(json("{\"execution\":\"/a/1.json\"}"), new BatchResult()));
+  }
+}